@@ -0,0 +1,99 @@
+package com.example.crypto_backend.bench;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.BalanceLedger;
+import com.example.crypto_backend.engine.FixedPoint;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.engine.Settlement;
+import com.example.crypto_backend.model.Asset;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The balance side of a fill as updateUserAsset records it: hold releases and usd/coin deltas for both
+// parties collected into a Settlement, then applied to the in-memory ledger. Users hold `assets` assets each.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AssetUpdateBenchmark {
+    private static final long PRICE = 10_000_00;
+    private static final long QUANTITY = 1_000000L;
+
+    @Param({"2", "10", "50"})
+    public int assets;
+
+    private final ScaleProperties scaleProperties = new ScaleProperties();
+    private BalanceLedger ledger;
+    private Order buy;
+    private Order sell;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        repositories.users.put("buyer", user("buyer"));
+        repositories.users.put("seller", user("seller"));
+        ledger = new BalanceLedger(repositories.userRepo(), repositories.orderRepo(), scaleProperties);
+        buy = new Order("b", "coin0", "buyer", OrderType.BUY, PRICE, QUANTITY, OrderStatus.PENDING, LocalDateTime.now());
+        sell = new Order("s", "coin0", "seller", OrderType.SELL, PRICE, QUANTITY, OrderStatus.PENDING, LocalDateTime.now());
+        // Holds large enough that the benchmark can release from them forever
+        ledger.reserve("buyer", "usd", 0);
+        ledger.reserve("seller", "coin0", 0);
+    }
+
+    private User user(String name) {
+        Map<String, Asset> balances = new HashMap<>();
+        balances.put("usd", asset("usd", Long.MAX_VALUE / 4));
+        for (int i = 0; i < assets - 1; i++) {
+            balances.put("coin" + i, asset("coin" + i, Long.MAX_VALUE / 4));
+        }
+        User user = new User();
+        user.setUserName(name);
+        user.setAssets(balances);
+        return user;
+    }
+
+    private static Asset asset(String id, long balance) {
+        Asset asset = new Asset();
+        asset.setAssetId(id);
+        asset.setBalance(balance);
+        return asset;
+    }
+
+    @Benchmark
+    public Settlement recordAndApplyFill() {
+        Settlement settlement = new Settlement();
+        record(buy, settlement);
+        record(sell, settlement);
+        ledger.apply(settlement);
+        return settlement;
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        boolean reserved = ledger.reserve("buyer", "usd", ledger.holdAmount(buy, QUANTITY));
+        ledger.release("buyer", "usd", ledger.holdAmount(buy, QUANTITY));
+        return reserved;
+    }
+
+    private void record(Order order, Settlement settlement) {
+        settlement.releaseHold(order.getUserName(), ledger.holdAsset(order), 0);
+        long cost = FixedPoint.notional(PRICE, QUANTITY, scaleProperties.quantityFactor(order.getCoinId()));
+        boolean buying = order.getType() == OrderType.BUY;
+        settlement.addBalanceDelta(order.getUserName(), "usd", buying ? -cost : cost);
+        settlement.addBalanceDelta(order.getUserName(), order.getCoinId(), buying ? QUANTITY : -QUANTITY);
+    }
+}
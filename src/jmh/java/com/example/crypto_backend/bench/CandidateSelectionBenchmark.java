@@ -0,0 +1,86 @@
+package com.example.crypto_backend.bench;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.OrderBook;
+import com.example.crypto_backend.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Candidate selection as checkAuction runs it, against asks `depth` price levels deep
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CandidateSelectionBenchmark {
+    private static final long BEST_ASK = 10_000_00;
+    private static final long LOT = 1_00000000L;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int depth;
+
+    @Param({"4"})
+    public int ordersPerLevel;
+
+    private OrderBook book;
+    private Order topOfBook;
+    private Order halfSweep;
+    private Order fullSweep;
+    private Order cancelAndReplace;
+    private int replaceCounter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        book = new OrderBook("btc");
+        int id = 0;
+        for (int level = 0; level < depth; level++) {
+            for (int i = 0; i < ordersPerLevel; i++) {
+                book.add(new Order("s" + id++, "btc", "maker" + (id % 50), OrderType.SELL, BEST_ASK + level,
+                        LOT, OrderStatus.PENDING, LocalDateTime.now()));
+            }
+        }
+        long total = (long) depth * ordersPerLevel * LOT;
+        topOfBook = buy(BEST_ASK, LOT);
+        halfSweep = buy(BEST_ASK + depth / 2, total / 2);
+        fullSweep = buy(BEST_ASK + depth, total);
+        cancelAndReplace = new Order("s0", "btc", "maker1", OrderType.SELL, BEST_ASK, LOT, OrderStatus.PENDING,
+                LocalDateTime.now());
+    }
+
+    private static Order buy(long price, long quantity) {
+        return new Order("b", "btc", "taker", OrderType.BUY, price, quantity, OrderStatus.PENDING, LocalDateTime.now());
+    }
+
+    @Benchmark
+    public List<Order> topOfBook() {
+        return book.findCandidates(topOfBook);
+    }
+
+    @Benchmark
+    public List<Order> halfSweep() {
+        return book.findCandidates(halfSweep);
+    }
+
+    @Benchmark
+    public List<Order> fullSweep() {
+        return book.findCandidates(fullSweep);
+    }
+
+    // Removal and re-insertion of the best ask, the book mutation every fill and cancel pays for
+    @Benchmark
+    public boolean removeAndAdd() {
+        book.remove(cancelAndReplace.getOrderId());
+        cancelAndReplace.setOrderId("r" + replaceCounter++);
+        return book.add(cancelAndReplace);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.crypto_backend.bench;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.OrderRepo;
+import com.example.crypto_backend.repository.UserRepo;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Map-backed stand-ins for the repositories the benchmarked code reads.
+// Only the methods it calls are implemented, anything else fails loudly.
+final class InMemoryRepositories {
+    final Map<String, User> users = new ConcurrentHashMap<>();
+    final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    UserRepo userRepo() {
+        return (UserRepo) Proxy.newProxyInstance(UserRepo.class.getClassLoader(), new Class<?>[]{UserRepo.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUserByUserName" -> Optional.ofNullable(users.get((String) args[0]));
+                    case "save" -> {
+                        User user = (User) args[0];
+                        users.put(user.getUserName(), user);
+                        yield user;
+                    }
+                    case "toString" -> "InMemoryUserRepo";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    OrderRepo orderRepo() {
+        return (OrderRepo) Proxy.newProxyInstance(OrderRepo.class.getClassLoader(), new Class<?>[]{OrderRepo.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllByUserNameAndStatus" -> {
+                        List<Order> found = new ArrayList<>();
+                        for (Order order : orders.values()) {
+                            if (order.getUserName().equals(args[0]) && order.getStatus() == (OrderStatus) args[1]) {
+                                found.add(order);
+                            }
+                        }
+                        yield found;
+                    }
+                    case "findById" -> Optional.ofNullable(orders.get((String) args[0]));
+                    case "toString" -> "InMemoryOrderRepo";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
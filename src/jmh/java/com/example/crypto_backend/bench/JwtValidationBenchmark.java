@@ -0,0 +1,65 @@
+package com.example.crypto_backend.bench;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.crypto_backend.jwt.JwtAuthFilter;
+import com.example.crypto_backend.jwt.JwtPrincipal;
+import com.example.crypto_backend.jwt.JwtProperties;
+import com.example.crypto_backend.jwt.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+// Token checks on every authenticated request: the full HMAC verification, the cached lookup
+// the filter uses, and the filter itself with an empty chain behind it
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtValidationBenchmark {
+    private JwtUtil jwtUtil;
+    private JwtAuthFilter filter;
+    private String token;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("benchmark-secret-benchmark-secret-0123456789");
+        properties.setIssuer("crypto-backend");
+        properties.setExpiration(3_600_000L);
+        jwtUtil = new JwtUtil(properties, new SimpleMeterRegistry());
+        filter = new JwtAuthFilter(jwtUtil);
+        token = jwtUtil.generateToken("alice", "USER");
+    }
+
+    @Benchmark
+    public DecodedJWT verify() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal authenticateCached() {
+        return jwtUtil.authenticate(token);
+    }
+
+    @Benchmark
+    public int filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+}
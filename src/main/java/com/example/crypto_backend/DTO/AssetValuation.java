@@ -0,0 +1,5 @@
+package com.example.crypto_backend.DTO;
+
+// price and value are fixed-point in price decimals, null when the coin has no trade yet
+public record AssetValuation(String assetId, long balance, Long price, Long value) {
+}
@@ -0,0 +1,7 @@
+package com.example.crypto_backend.DTO;
+
+import com.example.crypto_backend.model.Order;
+
+// Outcome of one order of a batch, index is its position in the request. Exactly one of order and error is set.
+public record BatchOrderResult(int index, Order order, String error) {
+}
@@ -0,0 +1,4 @@
+package com.example.crypto_backend.DTO;
+
+public record DepthLevel(long price, long quantity, int orders) {
+}
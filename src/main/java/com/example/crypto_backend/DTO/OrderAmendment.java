@@ -0,0 +1,8 @@
+package com.example.crypto_backend.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+// Fields to change on a resting order, null leaves the current value. Same fixed-point units as Order.
+public record OrderAmendment(@Schema(description = "Integer units of 10^-trading.scale.price-decimals USD") Long price,
+                             @Schema(description = "Integer units of 10^-decimals of the coin") Long quantity) {
+}
@@ -0,0 +1,7 @@
+package com.example.crypto_backend.DTO;
+
+import java.util.List;
+
+// Aggregated top of the book, bids highest first and asks lowest first
+public record OrderBookDepth(String coinId, Long bestBid, Long bestAsk, List<DepthLevel> bids, List<DepthLevel> asks) {
+}
@@ -0,0 +1,7 @@
+package com.example.crypto_backend.DTO;
+
+import java.util.List;
+
+// totalValue only sums the assets that could be priced
+public record PortfolioValuation(String userName, List<AssetValuation> assets, long totalValue) {
+}
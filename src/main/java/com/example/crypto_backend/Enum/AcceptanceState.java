@@ -0,0 +1,8 @@
+package com.example.crypto_backend.Enum;
+
+// Where an asynchronously submitted order is: waiting for its engine, turned down there, or matched and written
+public enum AcceptanceState {
+    QUEUED,
+    REJECTED,
+    PROCESSED
+}
@@ -3,5 +3,6 @@ package com.example.crypto_backend.Enum;
 public enum OrderStatus {
     PENDING,
     COMPLETED,
-    PARTIALLY_COMPLETED
+    PARTIALLY_COMPLETED,
+    CANCELLED
 }
@@ -0,0 +1,103 @@
+package com.example.crypto_backend.config;
+
+import com.example.crypto_backend.engine.FixedPoint;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.Transaction;
+import com.example.crypto_backend.model.User;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Prices, quantities and balances used to be stored as doubles in whole USD and coins; they are now longs
+// scaled by trading.scale. Fields still holding a BSON double are rescaled at startup, server-side and field
+// by field, while converted fields are left alone, so running it again is a no-op.
+// Runs after the assets layout migration, and the book and price caches wait for it before loading.
+@Component
+@DependsOn("userAssetsMigration")
+public class FixedPointMigration {
+    private static final Logger log = LoggerFactory.getLogger(FixedPointMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ScaleProperties scale;
+    private final StartupProperties startup;
+
+    public FixedPointMigration(MongoTemplate mongoTemplate, ScaleProperties scale, StartupProperties startup) {
+        this.mongoTemplate = mongoTemplate;
+        this.scale = scale;
+        this.startup = startup;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!startup.isMongoEnabled()) return;
+        rescaleTrades(Order.class, "orders");
+        rescaleTrades(Transaction.class, "transactions");
+        rescaleAssets();
+    }
+
+    // price and quantity of orders and transactions, the quantity factor depends on the coinId
+    private void rescaleTrades(Class<?> type, String label) {
+        Document filter = new Document("$or", List.of(
+                new Document("price", new Document("$type", "double")),
+                new Document("quantity", new Document("$type", "double"))));
+        Document set = new Document()
+                .append("price", rescale("$price", scale.priceFactor()))
+                .append("quantity", rescale("$quantity", quantityFactor("$coinId")));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(type))
+                .updateMany(filter, List.of(new Document("$set", set)));
+        if (result.getModifiedCount() > 0) {
+            log.info("Rescaled the amounts of {} {} to fixed-point", result.getModifiedCount(), label);
+        }
+    }
+
+    // Every balance in the assets map, usd by the price factor and coins by their quantity factor
+    private void rescaleAssets() {
+        Document entries = new Document("$ifNull", List.of(new Document("$objectToArray", "$assets"), List.of()));
+        Document anyDouble = new Document("$anyElementTrue", List.of(new Document("$map", new Document()
+                .append("input", entries)
+                .append("as", "e")
+                .append("in", new Document("$eq", List.of(new Document("$type", "$$e.v.balance"), "double"))))));
+        Document factor = new Document("$cond", List.of(
+                new Document("$eq", List.of("$$e.k", "usd")), scale.priceFactor(), quantityFactor("$$e.k")));
+        Document rescaled = new Document("$arrayToObject", new Document("$map", new Document()
+                .append("input", entries)
+                .append("as", "e")
+                .append("in", new Document("k", "$$e.k").append("v", new Document("$mergeObjects", List.of(
+                        "$$e.v", new Document("balance", rescale("$$e.v.balance", factor))))))));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).updateMany(
+                new Document("assets", new Document("$type", "object")).append("$expr", anyDouble),
+                List.of(new Document("$set", new Document("assets", rescaled))));
+        if (result.getModifiedCount() > 0) {
+            log.info("Rescaled the balances of {} users to fixed-point", result.getModifiedCount());
+        }
+    }
+
+    // Doubles are multiplied by the factor and rounded to the nearest unit, anything else is kept as it is
+    private static Document rescale(String field, Object factor) {
+        Document scaled = new Document("$toLong", new Document("$round", List.of(
+                new Document("$multiply", List.of(field, factor)), 0)));
+        return new Document("$cond", List.of(
+                new Document("$eq", List.of(new Document("$type", field), "double")), scaled, field));
+    }
+
+    private Object quantityFactor(String coinField) {
+        long defaultFactor = FixedPoint.pow10(scale.getDefaultQuantityDecimals());
+        if (scale.getQuantityDecimals().isEmpty()) return defaultFactor;
+        List<Document> branches = new ArrayList<>();
+        for (Map.Entry<String, Integer> coin : scale.getQuantityDecimals().entrySet()) {
+            branches.add(new Document("case", new Document("$eq", List.of(coinField, coin.getKey())))
+                    .append("then", scale.quantityFactor(coin.getKey())));
+        }
+        return new Document("$switch", new Document("branches", branches).append("default", defaultFactor));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.crypto_backend.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Amounts are fixed-point longs (cents, 1e-8 coin units). Jackson would otherwise truncate 12.5 to 12,
+    // a client still sending decimal amounts gets a 400 instead of a silently different order.
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer rejectFractionalAmounts() {
+        return builder -> builder.featuresToDisable(DeserializationFeature.ACCEPT_FLOAT_AS_INT);
+    }
+}
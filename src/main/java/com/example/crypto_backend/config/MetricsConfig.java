@@ -0,0 +1,10 @@
+package com.example.crypto_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+// Loaded after application.properties, so deployments can still override anything set there
+@Configuration
+@PropertySource("classpath:management.properties")
+public class MetricsConfig {
+}
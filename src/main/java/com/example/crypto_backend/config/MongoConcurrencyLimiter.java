@@ -0,0 +1,50 @@
+package com.example.crypto_backend.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Bounds the blocking Mongo calls made on request threads. With virtual threads there can be far more
+// requests in flight than pooled connections; callers beyond the limit wait here briefly and are then
+// turned away, instead of piling up in the driver's connection wait queue.
+// Engine threads write without a permit so matching never queues behind reads.
+@Component
+public class MongoConcurrencyLimiter {
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+
+    public MongoConcurrencyLimiter(MongoLimiterProperties properties, Environment environment) {
+        // Threading.VIRTUAL is only active when the property is set and the runtime supports it
+        this.enabled = properties.getEnabled() != null ? properties.getEnabled() : Threading.VIRTUAL.isActive(environment);
+        this.permits = new Semaphore(Math.max(1, properties.getPermits()), true);
+        this.acquireTimeoutMillis = properties.getAcquireTimeoutMillis();
+    }
+
+    // Throws RejectedExecutionException when no permit frees up in time
+    public <T> T call(Supplier<T> call) {
+        if (!enabled) return call.get();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Too many concurrent database calls");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a database permit", e);
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
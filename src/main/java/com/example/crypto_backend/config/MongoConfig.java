@@ -0,0 +1,50 @@
+package com.example.crypto_backend.config;
+
+import com.example.crypto_backend.model.Candle;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.Transaction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+@Configuration
+public class MongoConfig {
+    // Collections whose declared indexes are created at startup, whatever auto-index-creation is set to
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(Order.class, Transaction.class, Candle.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final StartupProperties startup;
+
+    public MongoConfig(MongoTemplate mongoTemplate, MongoMappingContext mappingContext, StartupProperties startup) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.startup = startup;
+    }
+
+    // Multi-document transactions need Mongo to run as a replica set
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexes() {
+        if (!startup.isMongoEnabled()) return;
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> type : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(indexOps::ensureIndex);
+        }
+    }
+}
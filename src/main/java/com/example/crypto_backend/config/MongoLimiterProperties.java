@@ -0,0 +1,21 @@
+package com.example.crypto_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.mongo-limiter")
+public class MongoLimiterProperties {
+    // Unset means on exactly when requests run on virtual threads. With platform threads Tomcat's pool
+    // already caps concurrency and the limiter would only add a fair semaphore to every call.
+    // spring.threads.virtual.enabled=true only takes effect on a Java 21+ runtime; the build's toolchain
+    // is Java 17, so `gradle bootRun` stays on platform threads and the limiter stays off. Run the jar on a
+    // Java 21 JVM for virtual-thread mode.
+    private Boolean enabled;
+    // Request-path Mongo calls in flight at once, keep at or below the driver's maxPoolSize (100 by default).
+    private int permits = 100;
+    // How long a call waits for a permit before it is rejected
+    private long acquireTimeoutMillis = 1000;
+}
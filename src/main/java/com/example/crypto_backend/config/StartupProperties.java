@@ -0,0 +1,14 @@
+package com.example.crypto_backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.startup")
+public class StartupProperties {
+    // Startup work against Mongo: migrations, index creation and loading the books, last prices and open
+    // candles. Only turned off for a context without a database, which then starts with empty books.
+    private boolean mongoEnabled = true;
+}
@@ -0,0 +1,48 @@
+package com.example.crypto_backend.config;
+
+import com.example.crypto_backend.model.User;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// User.assets used to be stored as an array of {assetId, balance}; it is now an object keyed by assetId so a
+// single balance can be $inc'ed in place. Documents still in the array shape are rewritten at startup, in
+// one server-side update that leaves converted documents alone, so running it again is a no-op.
+@Component
+public class UserAssetsMigration {
+    private static final Logger log = LoggerFactory.getLogger(UserAssetsMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final StartupProperties startup;
+
+    public UserAssetsMigration(MongoTemplate mongoTemplate, StartupProperties startup) {
+        this.mongoTemplate = mongoTemplate;
+        this.startup = startup;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!startup.isMongoEnabled()) return;
+        // assets: [{assetId: "usd", balance: 5}] -> assets: {usd: {assetId: "usd", balance: 5}}, entries
+        // without an assetId cannot be keyed and are dropped
+        Document toObject = new Document("$arrayToObject", new Document("$map", new Document()
+                .append("input", new Document("$filter", new Document()
+                        .append("input", "$assets")
+                        .append("as", "a")
+                        .append("cond", new Document("$eq", List.of(new Document("$type", "$$a.assetId"), "string")))))
+                .append("as", "a")
+                .append("in", new Document("k", "$$a.assetId").append("v", "$$a"))));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).updateMany(
+                new Document("assets", new Document("$type", "array")),
+                List.of(new Document("$set", new Document("assets", toObject))));
+        if (result.getModifiedCount() > 0) {
+            log.info("Converted the assets of {} users from a list to a map", result.getModifiedCount());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.crypto_backend.controller;
 import com.example.crypto_backend.jwt.JwtUtil;
 import com.example.crypto_backend.DTO.userDTO;
 import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.security.PasswordHashingExecutor;
 import com.example.crypto_backend.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -13,6 +14,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:5173")
@@ -22,54 +26,71 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final UserService userService;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
-    public AuthController(JwtUtil jwtUtil, UserService userService, AuthenticationManager authenticationManager) {
+    public AuthController(JwtUtil jwtUtil, UserService userService, AuthenticationManager authenticationManager,
+                          PasswordHashingExecutor passwordHashingExecutor) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
         this.authenticationManager = authenticationManager;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody @Valid userDTO loginInfo) {
-        try {
-            // Authenticate the user
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginInfo.getUserName(), loginInfo.getPassWord())
-            );
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody @Valid userDTO loginInfo) {
+        return onHashingPool(() -> {
+            try {
+                // Authenticate the user
+                Authentication authentication = authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(loginInfo.getUserName(), loginInfo.getPassWord())
+                );
 
-            // If authentication is successful, retrieve the user and generate a JWT token
-            User user = userService.getUserByUserName(authentication.getName());
-            String jwt = jwtUtil.generateToken(user.getUserName(), user.getRole());
-            return ResponseEntity.ok(Map.of("token", jwt));
+                // If authentication is successful, retrieve the user and generate a JWT token
+                User user = userService.getUserByUserName(authentication.getName());
+                String jwt = jwtUtil.generateToken(user.getUserName(), user.getRole());
+                return ResponseEntity.ok(Map.of("token", jwt));
 
-        } catch (AuthenticationException e) {
-            // Log the exception and return unauthorized status
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid credentials"));
-        } catch (Exception e) {
-            // Log unexpected exceptions
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "An error occurred"));
-        }
+            } catch (AuthenticationException e) {
+                // Log the exception and return unauthorized status
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid credentials"));
+            } catch (Exception e) {
+                // Log unexpected exceptions
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "An error occurred"));
+            }
+        });
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody @Valid User user) {
-        try {
-            if (userService.getUserByUserNameSimply(user.getUserName()) != null) {
-                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Username already exists"));
-            }
-            user.setRole("USER"); // Default role for new users
-            User createdUser = userService.createUser(user);
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody @Valid User user) {
+        return onHashingPool(() -> {
+            try {
+                if (userService.getUserByUserNameSimply(user.getUserName()) != null) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Username already exists"));
+                }
+                user.setRole("USER"); // Default role for new users
+                User createdUser = userService.createUser(user);
 
-            // If registration is successful, generate a JWT token for the new user
-            String jwt = jwtUtil.generateToken(createdUser.getUserName(), createdUser.getRole());
-            return ResponseEntity.ok(Map.of("token", jwt));
+                // If registration is successful, generate a JWT token for the new user
+                String jwt = jwtUtil.generateToken(createdUser.getUserName(), createdUser.getRole());
+                return ResponseEntity.ok(Map.of("token", jwt));
 
-        } catch (Exception e) {
-            // Log the exception and return bad request status
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "User registration failed"));
+            } catch (Exception e) {
+                // Log the exception and return bad request status
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "User registration failed"));
+            }
+        });
+    }
+
+    // BCrypt runs on the bounded hashing pool so a login burst can't take over the request threads
+    private CompletableFuture<ResponseEntity<?>> onHashingPool(Supplier<ResponseEntity<?>> task) {
+        try {
+            return passwordHashingExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many authentication requests, try again later")));
         }
     }
-}
\ No newline at end of file
+}
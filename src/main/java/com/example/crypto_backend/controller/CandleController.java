@@ -0,0 +1,40 @@
+package com.example.crypto_backend.controller;
+
+import com.example.crypto_backend.Enum.CandleResolution;
+import com.example.crypto_backend.service.CandleService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:5173")
+@RequestMapping("/candles")
+public class CandleController {
+    private static final int DEFAULT_CANDLES = 500;
+
+    private final CandleService candleService;
+
+    public CandleController(CandleService candleService) {
+        this.candleService = candleService;
+    }
+
+    @GetMapping("/{coinId}")
+    public ResponseEntity<?> getCandles(@PathVariable String coinId,
+                                        @RequestParam(defaultValue = "1m") String resolution,
+                                        @RequestParam(required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                        @RequestParam(required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        try {
+            CandleResolution candleResolution = CandleResolution.fromCode(resolution);
+            Instant end = to != null ? to : Instant.now();
+            Instant start = from != null ? from : end.minus(candleResolution.getDuration().multipliedBy(DEFAULT_CANDLES));
+            return ResponseEntity.ok(candleService.getCandles(coinId, candleResolution, start, end));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
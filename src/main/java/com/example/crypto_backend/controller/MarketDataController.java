@@ -0,0 +1,31 @@
+package com.example.crypto_backend.controller;
+
+import com.example.crypto_backend.marketdata.MarketDataService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:5173")
+@RequestMapping("/market")
+public class MarketDataController {
+    private final MarketDataService marketDataService;
+
+    public MarketDataController(MarketDataService marketDataService) {
+        this.marketDataService = marketDataService;
+    }
+
+    // Server-sent events: a book snapshot, then "trade" and "level" events as they happen
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) String coinId) {
+        try {
+            return ResponseEntity.ok(marketDataService.subscribe(coinId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -1,41 +1,74 @@
 package com.example.crypto_backend.controller;
 
+import com.example.crypto_backend.DTO.OrderAmendment;
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.EngineProperties;
+import com.example.crypto_backend.marketdata.MarketDataService;
 import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.service.OrderBookService;
 import com.example.crypto_backend.service.OrderService;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.util.UriComponentsBuilder;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:5173")
 @RequestMapping("/orders")
 public class OrderController {
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final OrderService orderService;
+    private final OrderBookService orderBookService;
+    private final MarketDataService marketDataService;
+    private final int maxBatchSize;
 
-    public OrderController(OrderService orderService){
+    public OrderController(OrderService orderService, OrderBookService orderBookService,
+                           MarketDataService marketDataService, EngineProperties engineProperties){
         this.orderService = orderService;
+        this.orderBookService = orderBookService;
+        this.marketDataService = marketDataService;
+        this.maxBatchSize = engineProperties.getMaxBatchSize();
     }
 
+    // With async=true the order is only checked and queued: 202 points at its status, and the
+    // outcome also arrives on /orders/updates/stream
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody Order order, UriComponentsBuilder ucb) {
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestParam(defaultValue = "false") boolean async,
+                                         UriComponentsBuilder ucb) {
         try{
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (!authentication.getName().equals(order.getUserName())) {
                 return ResponseEntity.status(403).body("You can only create orders for your own account.");
             }
+            if (async) {
+                String orderId = orderService.submitOrder(order);
+                return ResponseEntity.accepted()
+                        .location(ucb.path("/orders/{id}/status").buildAndExpand(orderId).toUri())
+                        .body(Map.of("orderId", orderId));
+            }
             Order createdOrder =  orderService.createOrder(order);
             URI locationOfNewOrder = ucb
                     .path("/orders/{id}")
                     .buildAndExpand(createdOrder.getOrderId())
                     .toUri();
-            System.out.println(ResponseEntity.created(locationOfNewOrder).build());
             return ResponseEntity.created(locationOfNewOrder).build();
         } catch (Exception e) {
             e.printStackTrace();
@@ -43,11 +76,92 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(@RequestBody List<Order> orders) {
+        try {
+            if (orders.size() > maxBatchSize) {
+                return ResponseEntity.badRequest().body("At most " + maxBatchSize + " orders per batch");
+            }
+            String userName = SecurityContextHolder.getContext().getAuthentication().getName();
+            for (Order order : orders) {
+                if (order == null || !userName.equals(order.getUserName())) {
+                    return ResponseEntity.status(403).body("You can only create orders for your own account.");
+                }
+            }
+            return ResponseEntity.ok(orderService.createOrders(orders));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{orderId}/status")
+    public ResponseEntity<?> getOrderStatus(@PathVariable String orderId) {
+        String userName = SecurityContextHolder.getContext().getAuthentication().getName();
+        return orderResponse(() -> orderService.getOrderStatus(orderId, userName));
+    }
+
+    // Server-sent "order" events for every change to the caller's orders
+    @GetMapping(path = "/updates/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderUpdates() {
+        try {
+            return ResponseEntity.ok(marketDataService.subscribeOrders(
+                    SecurityContextHolder.getContext().getAuthentication().getName()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<?> cancelOrder(@PathVariable String orderId) {
+        String userName = SecurityContextHolder.getContext().getAuthentication().getName();
+        return orderResponse(() -> orderService.cancelOrder(orderId, userName));
+    }
+
+    @PatchMapping("/{orderId}")
+    public ResponseEntity<?> amendOrder(@PathVariable String orderId, @RequestBody OrderAmendment amendment) {
+        String userName = SecurityContextHolder.getContext().getAuthentication().getName();
+        return orderResponse(() -> orderService.amendOrder(orderId, amendment, userName));
+    }
+
+    private ResponseEntity<?> orderResponse(Supplier<?> change) {
+        try {
+            return ResponseEntity.ok(change.get());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<?> getAllOrders(@RequestParam(defaultValue = "0") int page,
-                                          @RequestParam(defaultValue = "2") int size) {
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "2") int size,
+                                          @RequestParam(required = false) OrderStatus status,
+                                          @RequestParam(required = false) String coinId,
+                                          @RequestParam(required = false) OrderType type) {
         try{
-            return ResponseEntity.ok(orderService.getAllOrders(page, size));
+            return ResponseEntity.ok(orderService.getAllOrders(cursor, pageSize(size), status, coinId, type));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/book/{coinId}")
+    public ResponseEntity<?> getOrderBook(@PathVariable String coinId,
+                                          @RequestParam(defaultValue = "10") int levels) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(orderBookService.getDepthJson(coinId, levels));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
@@ -57,13 +171,23 @@ public class OrderController {
     @PreAuthorize("#userName == authentication.name or hasRole('ROLE_ADMIN')")
     @GetMapping("/{userName}")
     public ResponseEntity<?> getOrdersByUserName(@PathVariable String userName,
-                                           @RequestParam(defaultValue = "0") int page,
-                                           @RequestParam(defaultValue = "2") int size) {
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "2") int size,
+                                           @RequestParam(required = false) OrderStatus status,
+                                           @RequestParam(required = false) String coinId,
+                                           @RequestParam(required = false) OrderType type) {
         try {
-            return ResponseEntity.ok(orderService.getAllOrdersByUserName(userName, page, size));
+            return ResponseEntity.ok(orderService.getAllOrdersByUserName(userName, cursor, pageSize(size),
+                    status, coinId, type));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
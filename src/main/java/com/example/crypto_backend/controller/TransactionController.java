@@ -0,0 +1,38 @@
+package com.example.crypto_backend.controller;
+
+import com.example.crypto_backend.service.TransactionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:5173")
+@RequestMapping("/transactions")
+public class TransactionController {
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final TransactionService transactionService;
+
+    public TransactionController(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @PreAuthorize("#userName == authentication.name or hasRole('ROLE_ADMIN')")
+    @GetMapping("/{userName}")
+    public ResponseEntity<?> getTransactionsByUserName(@PathVariable String userName,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "50") int size) {
+        try {
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            return ResponseEntity.ok(transactionService.getAllTransactionsByUserName(userName, cursor, pageSize));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
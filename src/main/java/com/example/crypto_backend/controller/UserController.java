@@ -1,47 +1,84 @@
 package com.example.crypto_backend.controller;
 
 import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.security.PasswordHashingExecutor;
+import com.example.crypto_backend.service.PortfolioService;
+import com.example.crypto_backend.service.UserListingService;
 import com.example.crypto_backend.service.UserService;
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:5173")
 @RequestMapping("/users")
 public class UserController {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserService userService;
+    private final UserListingService userListingService;
+    private final PortfolioService portfolioService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserListingService userListingService,
+                          PortfolioService portfolioService, PasswordHashingExecutor passwordHashingExecutor) {
         this.userService = userService;
+        this.userListingService = userListingService;
+        this.portfolioService = portfolioService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
     @PostMapping
-    public ResponseEntity<?> createUser(@RequestBody User user, UriComponentsBuilder ucb) {
+    public CompletableFuture<ResponseEntity<?>> createUser(@RequestBody User user, UriComponentsBuilder ucb) {
+        // Password hashing runs on the bounded hashing pool, not on the request thread
         try {
-            User savedUser = userService.createUser(user);
-            URI locationOfNewUser = ucb
-                    .path("/users/{id}")
-                    .buildAndExpand(savedUser.getId())
-                    .toUri();
-            return ResponseEntity.created(locationOfNewUser).build();
-        } catch (Exception e) {
-            System.out.println("Error creating user: " + e.getMessage());
-            return ResponseEntity.badRequest().build();
+            return passwordHashingExecutor.submit(() -> {
+                try {
+                    User savedUser = userService.createUser(user);
+                    URI locationOfNewUser = ucb
+                            .path("/users/{id}")
+                            .buildAndExpand(savedUser.getId())
+                            .toUri();
+                    return ResponseEntity.created(locationOfNewUser).build();
+                } catch (Exception e) {
+                    System.out.println("Error creating user: " + e.getMessage());
+                    return ResponseEntity.badRequest().build();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
         }
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllUsers() {
+    public ResponseEntity<StreamingResponseBody> getAllUsers(@RequestParam(required = false) List<String> fields,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "100") int size) {
+        // Validate up front, once the body starts streaming the status can no longer change
+        Set<String> selected;
         try {
-            List<User> users = userService.getAllUsers();
-            return ResponseEntity.ok(users);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+            selected = userListingService.resolveFields(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (cursor != null && !cursor.isBlank() && !ObjectId.isValid(cursor)) {
+            return ResponseEntity.badRequest().build();
         }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> userListingService.writeUsers(selected, cursor, pageSize, out));
     }
 
     @GetMapping("/{userName}")
@@ -52,9 +89,37 @@ public class UserController {
                 return ResponseEntity.notFound().build();
             }
             return ResponseEntity.ok(user);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PreAuthorize("#userName == authentication.name or hasRole('ROLE_ADMIN')")
+    @GetMapping("/{userName}/portfolio")
+    public ResponseEntity<?> getPortfolio(@PathVariable String userName) {
+        try {
+            return ResponseEntity.ok(portfolioService.getPortfolio(userName));
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/portfolios")
+    public ResponseEntity<?> getPortfolios(@RequestBody List<String> userNames) {
+        try {
+            return ResponseEntity.ok(portfolioService.getPortfolios(userNames));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Asset;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.OrderRepo;
+import com.example.crypto_backend.repository.UserRepo;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory available/held balances per user and asset, used for pre-trade checks.
+// A user is loaded from Mongo on first touch; after that every change goes through here
+// before or together with the settlement that persists it.
+@Component
+public class BalanceLedger {
+    private static final int STRIPES = 64;
+
+    private static final class Account {
+        long total;
+        long held;
+    }
+
+    private final UserRepo userRepo;
+    private final OrderRepo orderRepo;
+    private final ScaleProperties scaleProperties;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // userName -> assetId -> account, an inner map is only touched under its user's stripe lock.
+    // Users stay cached for the life of the process, evicting one could drop holds of orders not yet written.
+    private final Map<String, Map<String, Account>> accounts = new ConcurrentHashMap<>();
+
+    public BalanceLedger(UserRepo userRepo, OrderRepo orderRepo, ScaleProperties scaleProperties) {
+        this.userRepo = userRepo;
+        this.orderRepo = orderRepo;
+        this.scaleProperties = scaleProperties;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Asset and amount an order locks up while `quantity` of it is still open
+    public String holdAsset(Order order) {
+        return order.getType() == OrderType.BUY ? "usd" : order.getCoinId();
+    }
+
+    public long holdAmount(Order order, long quantity) {
+        if (order.getType() == OrderType.BUY) {
+            return FixedPoint.notional(order.getPrice(), quantity, scaleProperties.quantityFactor(order.getCoinId()));
+        }
+        return quantity;
+    }
+
+    // Holds funds for the order, returns false when the available balance does not cover it
+    public boolean reserve(String userName, String assetId, long amount) {
+        Map<String, Account> userAccounts = load(userName);
+        ReentrantLock lock = lockFor(userName);
+        lock.lock();
+        try {
+            Account account = userAccounts.get(assetId);
+            if (account == null || account.total - account.held < amount) return false;
+            account.held += amount;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Swaps an order's hold for the one its replacement needs in a single step, so the funds are never
+    // free in between. Only the part exceeding the old hold has to be available.
+    public boolean replaceHold(String userName, String assetId, long released, long reserved) {
+        Map<String, Account> userAccounts = load(userName);
+        ReentrantLock lock = lockFor(userName);
+        lock.lock();
+        try {
+            Account account = userAccounts.get(assetId);
+            if (account == null || account.total - account.held < reserved - released) return false;
+            account.held += reserved - released;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAvailable(String userName, String assetId) {
+        Map<String, Account> userAccounts = load(userName);
+        ReentrantLock lock = lockFor(userName);
+        lock.lock();
+        try {
+            Account account = userAccounts.get(assetId);
+            return account == null ? 0 : account.total - account.held;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(String userName, String assetId, long amount) {
+        Map<String, Account> userAccounts = load(userName);
+        ReentrantLock lock = lockFor(userName);
+        lock.lock();
+        try {
+            Account account = userAccounts.get(assetId);
+            if (account != null) account.held -= amount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Makes sure the users are cached before their balances are written to Mongo,
+    // so a later first load can never read a balance that already includes a fill
+    public void ensureLoaded(Set<String> userNames) {
+        for (String userName : userNames) {
+            load(userName);
+        }
+    }
+
+    // Applies a settlement that has been written: releases the holds the fills used and moves the balances
+    public void apply(Settlement settlement) {
+        Set<String> userNames = new HashSet<>(settlement.getBalanceDeltas().keySet());
+        userNames.addAll(settlement.getHoldReleases().keySet());
+        for (String userName : userNames) {
+            Map<String, Account> userAccounts = load(userName);
+            ReentrantLock lock = lockFor(userName);
+            lock.lock();
+            try {
+                settlement.getHoldReleases().getOrDefault(userName, Map.of()).forEach((assetId, amount) ->
+                        userAccounts.computeIfAbsent(assetId, a -> new Account()).held -= amount);
+                settlement.getBalanceDeltas().getOrDefault(userName, Map.of()).forEach((assetId, delta) ->
+                        userAccounts.computeIfAbsent(assetId, a -> new Account()).total += delta);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Undoes apply() for a settlement that was applied ahead of its write and then failed to be written
+    public void revert(Settlement settlement) {
+        Set<String> userNames = new HashSet<>(settlement.getBalanceDeltas().keySet());
+        userNames.addAll(settlement.getHoldReleases().keySet());
+        for (String userName : userNames) {
+            Map<String, Account> userAccounts = load(userName);
+            ReentrantLock lock = lockFor(userName);
+            lock.lock();
+            try {
+                settlement.getHoldReleases().getOrDefault(userName, Map.of()).forEach((assetId, amount) ->
+                        userAccounts.computeIfAbsent(assetId, a -> new Account()).held += amount);
+                settlement.getBalanceDeltas().getOrDefault(userName, Map.of()).forEach((assetId, delta) ->
+                        userAccounts.computeIfAbsent(assetId, a -> new Account()).total -= delta);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Reads the user without holding its stripe lock, so a slow Mongo read only delays this user's caller.
+    // Entries are never dropped and every change needs the entry first, so the first read to be cached
+    // predates any settlement of that user; a slower concurrent read loses the race and is discarded.
+    private Map<String, Account> load(String userName) {
+        Map<String, Account> userAccounts = accounts.get(userName);
+        if (userAccounts != null) return userAccounts;
+
+        User user = userRepo.getUserByUserName(userName)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userName));
+        Map<String, Account> loaded = new HashMap<>();
+        if (user.getAssets() != null) {
+            for (Map.Entry<String, Asset> asset : user.getAssets().entrySet()) {
+                loaded.computeIfAbsent(asset.getKey(), a -> new Account()).total = asset.getValue().getBalance();
+            }
+        }
+        // Resting orders keep their funds on hold across restarts
+        for (Order order : orderRepo.findAllByUserNameAndStatus(userName, OrderStatus.PENDING)) {
+            loaded.computeIfAbsent(holdAsset(order), a -> new Account()).held += holdAmount(order, order.getQuantity());
+        }
+        Map<String, Account> cached = accounts.putIfAbsent(userName, loaded);
+        return cached != null ? cached : loaded;
+    }
+
+    private ReentrantLock lockFor(String userName) {
+        return locks[Math.floorMod(userName.hashCode(), STRIPES)];
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.model.Order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only log of the order states each settlement wrote, kept in memory-mapped segment files.
+// Every engine partition has its own journal, so engines never wait on each other's writes; records of
+// all partitions draw from one sequence, and a coin only ever writes to the journal of its partition.
+// A record is [length][crc32c][sequence, time, orders...]; a zero length marks the end of a segment,
+// and a record whose checksum does not match is a torn write and ends the replay of its partition.
+public class BookJournal {
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    // journal-<partition>-<first sequence>.log, segments of the former single journal are not replayed
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)-(\\d{20})\\.log");
+    private static final int HEADER = Integer.BYTES * 2;
+
+    public record Entry(long sequence, LocalDateTime time, List<Order> orders) {
+    }
+
+    public interface EntryHandler {
+        void accept(Entry entry);
+    }
+
+    private record Segment(Path path, int partition, long firstSequence) {
+    }
+
+    private final Path directory;
+    private final int partition;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final AtomicLong sequences;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private MappedByteBuffer segment;
+    private boolean closed;
+
+    // Records take the next number of `sequences` and go to fresh segments, existing ones are left to replay()
+    public BookJournal(Path directory, int partition, int segmentSize, boolean fsync, AtomicLong sequences) {
+        this.directory = directory;
+        this.partition = partition;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.sequences = sequences;
+    }
+
+    public synchronized long append(Collection<Order> orders) {
+        // The files of a closed journal may be deleted already, a new segment would be replayed without them
+        if (closed) throw new IllegalStateException("Journal " + partition + " is closed");
+        ByteBuffer payload = encode(orders);
+        int length = payload.remaining();
+        if (HEADER + length + Integer.BYTES > segmentSize) {
+            throw new IllegalStateException("Journal record larger than a segment: " + length + " bytes");
+        }
+        long sequence = sequences.incrementAndGet();
+        payload.putLong(0, sequence);
+        if (segment == null || segment.remaining() < HEADER + length + Integer.BYTES) {
+            roll(sequence);
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        int start = segment.position();
+        // Length goes in last, so a reader never sees a record before its bytes are all there
+        segment.position(start + Integer.BYTES);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+        segment.putInt(start, length);
+        if (fsync) segment.force();
+        return sequence;
+    }
+
+    // Deletes this partition's segments holding only records up to `sequence`, never the one being written
+    public synchronized void deleteUpTo(long sequence) {
+        List<Segment> segments = segments(directory).stream().filter(s -> s.partition() == partition).toList();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segments.get(i + 1).firstSequence() - 1 > sequence) break;
+            delete(segments.get(i).path());
+        }
+    }
+
+    // Appends fail from here on
+    public synchronized void close() {
+        if (segment != null) segment.force();
+        segment = null;
+        closed = true;
+    }
+
+    // Reads every intact record of every partition, returns the last sequence seen. Segments are read in
+    // the order they were started, so the records of each coin come in sequence order, also across a
+    // restart that changed the number of partitions.
+    public static long replay(Path directory, EntryHandler handler) {
+        long last = 0;
+        Set<Integer> torn = new HashSet<>();
+        for (Segment segment : segments(directory)) {
+            if (torn.contains(segment.partition())) continue;
+            try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CRC32C check = new CRC32C();
+                while (buffer.remaining() >= HEADER) {
+                    int length = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining() - Integer.BYTES) break;
+                    int expected = buffer.getInt();
+                    ByteBuffer payload = buffer.slice(buffer.position(), length);
+                    check.reset();
+                    check.update(payload.duplicate());
+                    if ((int) check.getValue() != expected) {
+                        torn.add(segment.partition());
+                        break;
+                    }
+                    buffer.position(buffer.position() + length);
+                    Entry entry = decode(payload);
+                    last = Math.max(last, entry.sequence());
+                    handler.accept(entry);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return last;
+    }
+
+    // Every journal file, whatever its partition or layout
+    public static void deleteAll(Path directory) {
+        if (!Files.isDirectory(directory)) return;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                            && p.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(BookJournal::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void roll(long firstSequence) {
+        try {
+            if (segment != null) segment.force();
+            Files.createDirectories(directory);
+            Path path = directory.resolve(String.format("%s%d-%020d%s", PREFIX, partition, firstSequence, SUFFIX));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The sequence is left at zero, append() fills it in once the record is known to fit
+    private ByteBuffer encode(Collection<Order> orders) {
+        while (true) {
+            try {
+                scratch.clear();
+                scratch.putLong(0);
+                OrderRecords.writeTime(scratch, LocalDateTime.now());
+                scratch.putInt(orders.size());
+                for (Order order : orders) {
+                    OrderRecords.write(scratch, order);
+                }
+                return scratch.flip();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private static Entry decode(ByteBuffer payload) {
+        long sequence = payload.getLong();
+        LocalDateTime time = OrderRecords.readTime(payload);
+        int count = payload.getInt();
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(OrderRecords.read(payload));
+        }
+        return new Entry(sequence, time, orders);
+    }
+
+    // Segments of every partition, ordered by the first sequence they hold
+    private static List<Segment> segments(Path directory) {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Segment> segments = new ArrayList<>();
+            files.forEach(path -> {
+                Matcher name = SEGMENT.matcher(path.getFileName().toString());
+                if (name.matches()) {
+                    segments.add(new Segment(path, Integer.parseInt(name.group(1)), Long.parseLong(name.group(2))));
+                }
+            });
+            segments.sort(Comparator.comparingLong(Segment::firstSequence));
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.model.Order;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Keeps the books recoverable without a full scan of the order collection: every written settlement is
+// journaled, and each book is snapshotted periodically so a restart only replays the journal tail.
+// Mongo stays the source of truth. If the files cannot be written or read back, they are dropped and
+// the next start rebuilds from Mongo again.
+@Component
+public class BookPersistence {
+    private static final Logger log = LoggerFactory.getLogger(BookPersistence.class);
+
+    private final JournalProperties properties;
+    private final OrderSequencer orderSequencer;
+    private final Path directory;
+    private final AtomicLong sequences = new AtomicLong();
+    // Guards journals and disabled: appends and snapshot writes share the read lock, discard() and
+    // shutdown() take the write lock. Appends of different engines go to different journals.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BookJournal[] journals;
+    // Set until start() and again once the files are discarded or the journals closed
+    private boolean disabled = true;
+    private long recoveredSequence;
+    private Supplier<Collection<OrderBook>> books;
+    private ScheduledExecutorService snapshotter;
+
+    public BookPersistence(JournalProperties properties, OrderSequencer orderSequencer) {
+        this.properties = properties;
+        this.orderSequencer = orderSequencer;
+        this.directory = Path.of(properties.getDirectory());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // Feeds the latest snapshot of every coin and then the journal records after it to `restore`.
+    // Returns the time from which Mongo still has to be re-read, or null when there was nothing to recover.
+    public LocalDateTime recover(Consumer<Order> restore) {
+        if (!properties.isEnabled()) return null;
+        try {
+            Map<String, BookSnapshots.Snapshot> snapshots = BookSnapshots.readAll(directory);
+            LocalDateTime[] latest = {null};
+            for (BookSnapshots.Snapshot snapshot : snapshots.values()) {
+                snapshot.orders().forEach(restore);
+                recoveredSequence = Math.max(recoveredSequence, snapshot.sequence());
+                latest[0] = later(latest[0], snapshot.time());
+            }
+            long last = BookJournal.replay(directory, entry -> {
+                for (Order order : entry.orders()) {
+                    BookSnapshots.Snapshot snapshot = snapshots.get(order.getCoinId());
+                    if (snapshot == null || entry.sequence() > snapshot.sequence()) restore.accept(order);
+                }
+                latest[0] = later(latest[0], entry.time());
+            });
+            recoveredSequence = Math.max(recoveredSequence, last);
+            if (latest[0] == null) return null;
+            return latest[0].minus(properties.getReconcileWindowMillis(), ChronoUnit.MILLIS);
+        } catch (RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    // Starts journaling after recovery: snapshots every book, drops the replayed journal and
+    // schedules the periodic snapshots. Runs before any order reaches the engines.
+    public void start(Supplier<Collection<OrderBook>> books) {
+        if (!properties.isEnabled()) return;
+        this.books = books;
+        for (OrderBook book : books.get()) {
+            BookSnapshots.write(directory, book.getCoinId(), BookSnapshots.encode(book, recoveredSequence));
+        }
+        // Everything replayed is in the snapshots now, including records of a different partition count
+        BookJournal.deleteAll(directory);
+        sequences.set(recoveredSequence);
+        lock.writeLock().lock();
+        try {
+            journals = new BookJournal[orderSequencer.partitions()];
+            for (int i = 0; i < journals.length; i++) {
+                journals[i] = new BookJournal(directory, i, properties.getSegmentSize(), properties.isFsync(), sequences);
+            }
+            disabled = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "book-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotAll, properties.getSnapshotIntervalMillis(),
+                properties.getSnapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Called on the engine thread of the orders' coin, after their settlement was written; the orders all
+    // belong to that engine, so they go to its journal. Returns false when the orders could not be turned
+    // into a record; the journal stays on and the caller snapshots the affected books instead.
+    // Only a failing disk turns journaling off.
+    public boolean append(Collection<Order> savedOrders) {
+        if (savedOrders.isEmpty()) return true;
+        UncheckedIOException failure;
+        lock.readLock().lock();
+        try {
+            if (disabled) return true;
+            journals[orderSequencer.partitionOf(savedOrders.iterator().next().getCoinId())].append(savedOrders);
+            return true;
+        } catch (UncheckedIOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            log.warn("Could not journal {} orders, snapshotting their books instead", savedOrders.size(), e);
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+        log.error("Journal write failed, journaling is off until restart", failure);
+        discard();
+        return true;
+    }
+
+    // Called on the book's engine thread, e.g. after the book was rebuilt outside the journal
+    public void snapshot(OrderBook book) {
+        try {
+            write(book.getCoinId(), BookSnapshots.encode(book, sequences.get()));
+        } catch (RuntimeException e) {
+            log.error("Snapshot of {} failed, journaling is off until restart", book.getCoinId(), e);
+            discard();
+        }
+    }
+
+    private void snapshotAll() {
+        if (isDisabled()) return;
+        try {
+            // Every record up to here belongs to a book that is snapshotted below
+            long covered = sequences.get();
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (OrderBook book : books.get()) {
+                pending.add(orderSequencer.submit(book.getCoinId(),
+                                () -> BookSnapshots.encode(book, sequences.get()))
+                        .thenAccept(bytes -> write(book.getCoinId(), bytes)));
+            }
+            pending.forEach(CompletableFuture::join);
+            lock.readLock().lock();
+            try {
+                if (disabled) return;
+                for (BookJournal journal : journals) {
+                    journal.deleteUpTo(covered);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            log.error("Periodic snapshot failed, journaling is off until restart", e);
+            discard();
+        }
+    }
+
+    // Snapshots are written under the same lock as the journals, so none outlives discard()
+    private void write(String coinId, byte[] bytes) {
+        lock.readLock().lock();
+        try {
+            if (!disabled) BookSnapshots.write(directory, coinId, bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isDisabled() {
+        lock.readLock().lock();
+        try {
+            return disabled;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Appends and snapshot writes hold the read lock, so once this has the write lock none is in flight,
+    // and the flag keeps later ones from recreating files next to a journal that is gone
+    private void discard() {
+        lock.writeLock().lock();
+        try {
+            disabled = true;
+            closeJournals();
+            BookSnapshots.deleteAll(directory);
+            BookJournal.deleteAll(directory);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void closeJournals() {
+        if (journals == null) return;
+        for (BookJournal journal : journals) {
+            journal.close();
+        }
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (snapshotter != null) snapshotter.shutdownNow();
+        // The engines are still running here, they are shut down after this bean
+        snapshotAll();
+        lock.writeLock().lock();
+        try {
+            disabled = true;
+            closeJournals();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
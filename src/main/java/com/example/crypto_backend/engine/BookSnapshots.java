@@ -0,0 +1,139 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// One file per coin holding its resting orders in book order (bids best first, then asks, FIFO within
+// a level) and the journal sequence it includes. Files are replaced atomically and carry a trailing
+// checksum. A file that fails it cannot be read: the journal before it may already be gone, so
+// recovery gives up and every book is rebuilt from Mongo.
+public final class BookSnapshots {
+    // Bumped with the record layout or with what recovery relies on, files of an older version fail
+    // recovery and trigger a rebuild. 3: reconciled by Order.lastModified, which older writes lack.
+    private static final int MAGIC = 0x4f424b33;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    public record Snapshot(String coinId, long sequence, LocalDateTime time, List<Order> orders) {
+    }
+
+    private BookSnapshots() {
+    }
+
+    // Called on the book's engine thread, the bytes can then be written from anywhere
+    public static byte[] encode(OrderBook book, long sequence) {
+        int capacity = 64 * 1024;
+        while (true) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(capacity);
+                buffer.putInt(MAGIC);
+                buffer.putLong(sequence);
+                OrderRecords.writeTime(buffer, LocalDateTime.now());
+                buffer.putInt(book.size());
+                for (OrderType side : OrderType.values()) {
+                    for (PriceLevel level : book.getLevels(side)) {
+                        for (Order order : level.getOrders()) {
+                            OrderRecords.write(buffer, order);
+                        }
+                    }
+                }
+                CRC32C crc = new CRC32C();
+                crc.update(buffer.array(), 0, buffer.position());
+                buffer.putInt((int) crc.getValue());
+                byte[] bytes = new byte[buffer.position()];
+                System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+                return bytes;
+            } catch (BufferOverflowException e) {
+                capacity *= 2;
+            }
+        }
+    }
+
+    public static void write(Path directory, String coinId, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path target = directory.resolve(PREFIX + URLEncoder.encode(coinId, StandardCharsets.UTF_8) + SUFFIX);
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Map<String, Snapshot> readAll(Path directory) {
+        Map<String, Snapshot> snapshots = new HashMap<>();
+        for (Path path : files(directory)) {
+            String name = path.getFileName().toString();
+            String coinId = URLDecoder.decode(name.substring(PREFIX.length(), name.length() - SUFFIX.length()),
+                    StandardCharsets.UTF_8);
+            snapshots.put(coinId, read(coinId, path));
+        }
+        return snapshots;
+    }
+
+    public static void deleteAll(Path directory) {
+        for (Path path : files(directory)) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Snapshot read(String coinId, Path path) {
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < Integer.BYTES * 3 + Long.BYTES) {
+                throw new IllegalStateException("Truncated snapshot " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            CRC32C crc = new CRC32C();
+            crc.update(bytes, 0, bytes.length - Integer.BYTES);
+            if (buffer.getInt(bytes.length - Integer.BYTES) != (int) crc.getValue()
+                    || buffer.getInt() != MAGIC) {
+                throw new IllegalStateException("Corrupt or outdated snapshot " + path);
+            }
+            long sequence = buffer.getLong();
+            LocalDateTime time = OrderRecords.readTime(buffer);
+            int count = buffer.getInt();
+            List<Order> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orders.add(OrderRecords.read(buffer));
+            }
+            return new Snapshot(coinId, sequence, time, orders);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> files(Path directory) {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                            && p.getFileName().toString().endsWith(SUFFIX))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
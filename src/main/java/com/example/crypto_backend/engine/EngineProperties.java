@@ -0,0 +1,27 @@
+package com.example.crypto_backend.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.engine")
+public class EngineProperties {
+    // Number of single-threaded matching engines, coins are spread across them by hash
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    // Slots per engine ring buffer, rounded up to a power of two
+    private int ringBufferSize = 1024;
+    // When off, candidates are read from Mongo through the candidate indexes instead of the in-memory book
+    private boolean orderBookEnabled = true;
+    // Candidates fetched per round trip when reading them from Mongo
+    private int candidateBatchSize = 64;
+    // Upper bound for the levels parameter of the depth endpoint
+    private int maxDepthLevels = 100;
+    // Upper bound for the number of orders in one batch submission
+    private int maxBatchSize = 500;
+    // How long the reason an asynchronously accepted order was rejected stays queryable
+    private long rejectionRetentionMillis = 5 * 60 * 1000L;
+    // Rejections kept at most, the oldest is dropped early to make room for a new one
+    private int maxTrackedRejections = 100_000;
+}
@@ -0,0 +1,39 @@
+package com.example.crypto_backend.engine;
+
+import java.math.BigInteger;
+
+// Helpers for amounts held as longs scaled by a power of ten
+public final class FixedPoint {
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    public static long pow10(int decimals) {
+        if (decimals < 0 || decimals >= POW10.length) {
+            throw new IllegalArgumentException("Unsupported number of decimals: " + decimals);
+        }
+        return POW10[decimals];
+    }
+
+    // USD cost of a quantity at a price, in price units. quantityFactor is 10^quantityDecimals of the coin.
+    public static long notional(long price, long quantity, long quantityFactor) {
+        long high = Math.multiplyHigh(price, quantity);
+        long low = price * quantity;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low / quantityFactor;
+        }
+        // The product does not fit in 64 bits, fall back to the slow path
+        return BigInteger.valueOf(price)
+                .multiply(BigInteger.valueOf(quantity))
+                .divide(BigInteger.valueOf(quantityFactor))
+                .longValueExact();
+    }
+}
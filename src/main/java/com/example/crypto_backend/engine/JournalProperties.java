@@ -0,0 +1,24 @@
+package com.example.crypto_backend.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.journal")
+public class JournalProperties {
+    // Recover the books from snapshots plus journal instead of scanning every PENDING order.
+    // Delete the directory before turning this back on after running without it.
+    private boolean enabled = false;
+    private String directory = "data/journal";
+    // Bytes per memory-mapped journal segment
+    private int segmentSize = 64 * 1024 * 1024;
+    // Books are snapshotted this often, which bounds the journal tail replayed on startup
+    private long snapshotIntervalMillis = 60_000;
+    // Force every append to disk. Without it an append survives a process crash but not a power loss.
+    private boolean fsync = false;
+    // On startup, orders Mongo changed this long before the last journal record are re-read,
+    // covering writes that made it to Mongo but not into the journal
+    private long reconcileWindowMillis = 5_000;
+}
@@ -0,0 +1,64 @@
+package com.example.crypto_backend.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Runs the tasks of its ring buffer on one thread. An idle engine spins briefly and then parks until the next
+// publish wakes it, so idle engines cost no CPU. Tasks still queued when it stops fail with a
+// RejectedExecutionException instead of leaving their callers waiting.
+public class MatchingEngine implements Runnable {
+    private static final int SPINS_BEFORE_PARK = 200;
+
+    private final int partition;
+    private final RingBuffer ringBuffer;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public MatchingEngine(int partition, int ringBufferSize) {
+        this.partition = partition;
+        this.ringBuffer = new RingBuffer(ringBufferSize);
+        this.thread = new Thread(this, "matching-engine-" + partition);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (Thread.currentThread() == thread) {
+            // Already on this engine, run inline instead of queueing behind ourselves
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        ringBuffer.publish(task, future);
+        return future;
+    }
+
+    @Override
+    public void run() {
+        int idle = 0;
+        while (running) {
+            if (ringBuffer.runNext()) {
+                idle = 0;
+            } else if (++idle < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                ringBuffer.awaitPublished();
+            }
+        }
+        ringBuffer.close(new RejectedExecutionException("Matching engine " + partition + " is stopped"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.DTO.DepthLevel;
+import com.example.crypto_backend.DTO.OrderBookDepth;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Not thread-safe: a book is only touched from the matching engine thread that owns its coin
+public class OrderBook {
+    private final String coinId;
+    // Bids are kept highest price first, asks lowest price first
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>();
+    // Hash index from orderId to the order's place in its level, for O(1) lookup and removal
+    private final Map<String, PriceLevel.Node> ordersById = new HashMap<>();
+    // Bumped on every change, readable from any thread to tell whether a cached view is stale
+    private volatile long version;
+
+    public OrderBook(String coinId) {
+        this.coinId = coinId;
+    }
+
+    public String getCoinId() {
+        return coinId;
+    }
+
+    public boolean add(Order order) {
+        if (order.getOrderId() == null || ordersById.containsKey(order.getOrderId())) return false;
+        PriceLevel.Node node = sideOf(order.getType())
+                .computeIfAbsent(order.getPrice(), PriceLevel::new)
+                .add(order);
+        ordersById.put(order.getOrderId(), node);
+        version++;
+        return true;
+    }
+
+    public boolean remove(String orderId) {
+        PriceLevel.Node node = ordersById.remove(orderId);
+        if (node == null) return false;
+        unlink(node);
+        version++;
+        return true;
+    }
+
+    // Updates a resting order. It keeps its queue position while side and price stay the same,
+    // otherwise it goes to the back of its new level. Returns false if the order is not resting.
+    public boolean replace(Order order) {
+        PriceLevel.Node node = ordersById.get(order.getOrderId());
+        if (node == null) return false;
+        Order current = node.getOrder();
+        if (current.getType() == order.getType() && current.getPrice() == order.getPrice()) {
+            node.getLevel().replace(node, order);
+        } else {
+            unlink(node);
+            ordersById.put(order.getOrderId(), sideOf(order.getType())
+                    .computeIfAbsent(order.getPrice(), PriceLevel::new)
+                    .add(order));
+        }
+        version++;
+        return true;
+    }
+
+    public Order find(String orderId) {
+        PriceLevel.Node node = ordersById.get(orderId);
+        return node == null ? null : node.getOrder();
+    }
+
+    // Orders of both sides, for callers that need to walk the whole book
+    public Collection<Order> getOrders() {
+        List<Order> orders = new ArrayList<>(ordersById.size());
+        ordersById.values().forEach(node -> orders.add(node.getOrder()));
+        return orders;
+    }
+
+    private void unlink(PriceLevel.Node node) {
+        PriceLevel level = node.getLevel();
+        level.remove(node);
+        if (level.isEmpty()) sideOf(node.getOrder().getType()).remove(level.getPrice());
+    }
+
+    // Empties the book in place, the version keeps counting so cached views notice
+    public void clear() {
+        bids.clear();
+        asks.clear();
+        ordersById.clear();
+        version++;
+    }
+
+    public List<Order> findCandidates(Order newOrder) {
+        // Walk the opposite side from the best price up to the new order's limit price,
+        // stopping as soon as enough quantity has been collected to fill it
+        NavigableMap<Long, PriceLevel> opposite = newOrder.getType() == OrderType.BUY ? asks : bids;
+        List<Order> candidates = new ArrayList<>();
+        long collected = 0;
+        for (PriceLevel level : opposite.headMap(newOrder.getPrice(), true).values()) {
+            for (Order o : level.getOrders()) {
+                if (o.getUserName().equals(newOrder.getUserName())) continue;
+                candidates.add(o);
+                collected += o.getQuantity();
+                if (collected >= newOrder.getQuantity()) return candidates;
+            }
+        }
+        return candidates;
+    }
+
+    public PriceLevel getLevel(OrderType side, long price) {
+        return sideOf(side).get(price);
+    }
+
+    // Price levels of one side, best price first
+    public Collection<PriceLevel> getLevels(OrderType side) {
+        return sideOf(side).values();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public OrderBookDepth depth(int levels) {
+        return new OrderBookDepth(coinId,
+                bids.isEmpty() ? null : bids.firstKey(),
+                asks.isEmpty() ? null : asks.firstKey(),
+                topLevels(bids, levels), topLevels(asks, levels));
+    }
+
+    private static List<DepthLevel> topLevels(NavigableMap<Long, PriceLevel> side, int levels) {
+        List<DepthLevel> top = new ArrayList<>(Math.min(levels, side.size()));
+        for (PriceLevel level : side.values()) {
+            if (top.size() == levels) break;
+            top.add(new DepthLevel(level.getPrice(), level.getTotalQuantity(), level.getOrderCount()));
+        }
+        return top;
+    }
+
+    public int size() {
+        return ordersById.size();
+    }
+
+    private NavigableMap<Long, PriceLevel> sideOf(OrderType type) {
+        return type == OrderType.BUY ? bids : asks;
+    }
+}
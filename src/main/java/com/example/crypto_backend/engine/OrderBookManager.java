@@ -0,0 +1,213 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.config.StartupProperties;
+import com.example.crypto_backend.marketdata.BookLevelEvent;
+import com.example.crypto_backend.marketdata.MarketDataPublisher;
+import com.example.crypto_backend.metrics.TradingMetrics;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.repository.OrderRepo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads stored orders at startup, so only after they are rescaled to fixed-point
+@Component
+@DependsOn("fixedPointMigration")
+public class OrderBookManager {
+    private static final Logger log = LoggerFactory.getLogger(OrderBookManager.class);
+
+    private final OrderRepo orderRepo;
+    private final EngineProperties properties;
+    private final MarketDataPublisher marketDataPublisher;
+    private final BookPersistence bookPersistence;
+    private final TradingMetrics metrics;
+    private final StartupProperties startup;
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    // orderId -> coinId of every resting order, so a request naming only the order reaches the right engine
+    private final Map<String, String> restingCoins = new ConcurrentHashMap<>();
+
+    private record LevelKey(String coinId, OrderType side, long price) {
+    }
+
+    public OrderBookManager(OrderRepo orderRepo, EngineProperties properties, MarketDataPublisher marketDataPublisher,
+                            BookPersistence bookPersistence, TradingMetrics metrics, StartupProperties startup) {
+        this.orderRepo = orderRepo;
+        this.properties = properties;
+        this.marketDataPublisher = marketDataPublisher;
+        this.bookPersistence = bookPersistence;
+        this.metrics = metrics;
+        this.startup = startup;
+    }
+
+    @PostConstruct
+    public void hydrate() {
+        if (!properties.isOrderBookEnabled() || !startup.isMongoEnabled()) return;
+        LocalDateTime reconcileFrom = null;
+        try {
+            reconcileFrom = bookPersistence.recover(this::onOrderSaved);
+        } catch (RuntimeException e) {
+            log.error("Could not recover the books from the journal, rebuilding them from Mongo", e);
+            books.clear();
+            restingCoins.clear();
+        }
+        if (reconcileFrom == null) {
+            // Load resting orders oldest first so each price level keeps its time priority
+            for (Order order : orderRepo.findAllByStatusOrderByTimeStampAsc(OrderStatus.PENDING)) {
+                add(getBook(order.getCoinId()), order);
+            }
+        } else {
+            // Snapshots and journal are restored, catch up with writes that reached Mongo but not the journal
+            for (Order order : orderRepo.findAllByLastModifiedGreaterThanEqualOrderByLastModifiedAsc(reconcileFrom)) {
+                onOrderSaved(order);
+            }
+        }
+        bookPersistence.start(books::values);
+    }
+
+    public boolean isEnabled() {
+        return properties.isOrderBookEnabled();
+    }
+
+    // Rebuilds a coin's book from its persisted resting orders, for when changes applied ahead
+    // of their write could not be written. Every level of the old and new book is republished.
+    public void reload(String coinId) {
+        if (!properties.isOrderBookEnabled()) return;
+        OrderBook book = getBook(coinId);
+        Collection<LevelKey> touched = new LinkedHashSet<>();
+        collectLevels(book, touched);
+        book.getOrders().forEach(order -> restingCoins.remove(order.getOrderId()));
+        book.clear();
+        for (Order order : orderRepo.findAllByCoinIdAndStatusOrderByTimeStampAsc(coinId, OrderStatus.PENDING)) {
+            add(book, order);
+        }
+        // The journal does not know about the rebuild, start this coin over from a snapshot
+        bookPersistence.snapshot(book);
+        collectLevels(book, touched);
+        touched.forEach(this::publishLevel);
+    }
+
+    private static void collectLevels(OrderBook book, Collection<LevelKey> keys) {
+        for (OrderType side : OrderType.values()) {
+            for (PriceLevel level : book.getLevels(side)) {
+                keys.add(new LevelKey(book.getCoinId(), side, level.getPrice()));
+            }
+        }
+    }
+
+    public OrderBook getBook(String coinId) {
+        return books.computeIfAbsent(coinId, this::newBook);
+    }
+
+    private OrderBook newBook(String coinId) {
+        metrics.registerBook(coinId, () -> books.get(coinId));
+        return new OrderBook(coinId);
+    }
+
+    // Existing book or null, for readers that should not create books for unknown coins
+    public OrderBook findBook(String coinId) {
+        return books.get(coinId);
+    }
+
+    public List<Order> findCandidates(Order newOrder) {
+        if (properties.isOrderBookEnabled()) {
+            return getBook(newOrder.getCoinId()).findCandidates(newOrder);
+        }
+        return queryCandidates(newOrder);
+    }
+
+    // Brings the books in line with saved orders, journals them and publishes the price levels that changed
+    public void apply(Collection<Order> savedOrders) {
+        applyUnwritten(savedOrders);
+        journal(savedOrders);
+    }
+
+    // apply() for orders whose write is still to come, journal() them once it has succeeded
+    public void applyUnwritten(Collection<Order> savedOrders) {
+        if (!properties.isOrderBookEnabled()) return;
+        Collection<LevelKey> changed = new LinkedHashSet<>();
+        for (Order order : savedOrders) {
+            if (onOrderSaved(order)) {
+                changed.add(new LevelKey(order.getCoinId(), order.getType(), order.getPrice()));
+            }
+        }
+        changed.forEach(this::publishLevel);
+    }
+
+    public void journal(Collection<Order> savedOrders) {
+        if (!properties.isOrderBookEnabled()) return;
+        if (!bookPersistence.append(savedOrders)) {
+            // The books already hold these changes, a snapshot records them in place of the journal
+            savedOrders.stream().map(Order::getCoinId).distinct().map(books::get)
+                    .filter(Objects::nonNull).forEach(bookPersistence::snapshot);
+        }
+    }
+
+    private void publishLevel(LevelKey key) {
+        PriceLevel level = getBook(key.coinId()).getLevel(key.side(), key.price());
+        marketDataPublisher.publishLevel(new BookLevelEvent(key.coinId(), key.side(), key.price(),
+                level == null ? 0 : level.getTotalQuantity(), level == null ? 0 : level.getOrderCount()));
+    }
+
+    public boolean onOrderSaved(Order order) {
+        if (!properties.isOrderBookEnabled()) return false;
+        OrderBook book = getBook(order.getCoinId());
+        // Only PENDING orders rest in the book, any other status takes them out
+        if (order.getStatus() == OrderStatus.PENDING) {
+            return book.replace(order) || add(book, order);
+        }
+        restingCoins.remove(order.getOrderId());
+        return book.remove(order.getOrderId());
+    }
+
+    // Resting order by id, null if it is not in the book. Only call from the coin's engine thread.
+    public Order getRestingOrder(String orderId) {
+        String coinId = restingCoins.get(orderId);
+        OrderBook book = coinId == null ? null : books.get(coinId);
+        return book == null ? null : book.find(orderId);
+    }
+
+    // Coin of a resting order, null if the order is not in any book
+    public String findCoin(String orderId) {
+        return restingCoins.get(orderId);
+    }
+
+    private boolean add(OrderBook book, Order order) {
+        if (!book.add(order)) return false;
+        restingCoins.put(order.getOrderId(), order.getCoinId());
+        return true;
+    }
+
+    private List<Order> queryCandidates(Order newOrder) {
+        // Same selection as the book, served by an index range scan one batch at a time
+        List<Order> candidates = new ArrayList<>();
+        long collected = 0;
+        int batchSize = properties.getCandidateBatchSize();
+        for (int page = 0; ; page++) {
+            PageRequest pageRequest = PageRequest.of(page, batchSize);
+            List<Order> batch = newOrder.getType() == OrderType.BUY
+                    ? orderRepo.findAskCandidates(newOrder.getCoinId(), newOrder.getPrice(), pageRequest)
+                    : orderRepo.findBidCandidates(newOrder.getCoinId(), newOrder.getPrice(), pageRequest);
+            for (Order o : batch) {
+                if (o.getUserName().equals(newOrder.getUserName())) continue;
+                candidates.add(o);
+                collected += o.getQuantity();
+                if (collected >= newOrder.getQuantity()) return candidates;
+            }
+            if (batch.size() < batchSize) return candidates;
+        }
+    }
+}
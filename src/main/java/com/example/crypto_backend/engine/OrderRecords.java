@@ -0,0 +1,74 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Compact binary form of an order shared by the journal and the book snapshots
+final class OrderRecords {
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private OrderRecords() {
+    }
+
+    static void write(ByteBuffer buffer, Order order) {
+        writeString(buffer, order.getOrderId());
+        writeString(buffer, order.getCoinId());
+        writeString(buffer, order.getUserName());
+        writeEnum(buffer, order.getType());
+        buffer.putLong(order.getPrice());
+        buffer.putLong(order.getQuantity());
+        writeEnum(buffer, order.getStatus());
+        writeTime(buffer, order.getTimeStamp());
+    }
+
+    static Order read(ByteBuffer buffer) {
+        return new Order(readString(buffer), readString(buffer), readString(buffer),
+                readEnum(buffer, OrderType.values()), buffer.getLong(), buffer.getLong(),
+                readEnum(buffer, OrderStatus.values()), readTime(buffer));
+    }
+
+    static void writeTime(ByteBuffer buffer, LocalDateTime time) {
+        // LocalDateTime is stored as is, the UTC offset only serves as a neutral epoch
+        buffer.putLong(time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(time == null ? 0 : time.getNano());
+    }
+
+    static LocalDateTime readTime(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static void writeEnum(ByteBuffer buffer, Enum<?> value) {
+        buffer.put(value == null ? -1 : (byte) value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer buffer, E[] values) {
+        byte ordinal = buffer.get();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.crypto_backend.engine;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+@Component
+public class OrderSequencer {
+    private final MatchingEngine[] engines;
+
+    public OrderSequencer(EngineProperties properties) {
+        int partitions = Math.max(1, properties.getPartitions());
+        this.engines = new MatchingEngine[partitions];
+        for (int i = 0; i < partitions; i++) {
+            engines[i] = new MatchingEngine(i, properties.getRingBufferSize());
+            engines[i].start();
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String coinId, Supplier<T> task) {
+        // Every task for a coin lands on the same engine thread, so a coin's book is single-writer
+        return engines[partitionOf(coinId)].submit(task);
+    }
+
+    public int partitionOf(String coinId) {
+        return Math.floorMod(coinId.hashCode(), engines.length);
+    }
+
+    public int partitions() {
+        return engines.length;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (MatchingEngine engine : engines) {
+            engine.stop();
+        }
+    }
+}
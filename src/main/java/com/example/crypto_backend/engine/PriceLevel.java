@@ -0,0 +1,107 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.model.Order;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class PriceLevel {
+    // Link of the level's FIFO queue. OrderBook keeps the node of every resting order,
+    // so taking an order out never walks the queue.
+    public static final class Node {
+        private final PriceLevel level;
+        private Order order;
+        private Node prev;
+        private Node next;
+
+        private Node(PriceLevel level, Order order) {
+            this.level = level;
+            this.order = order;
+        }
+
+        public PriceLevel getLevel() {
+            return level;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+    }
+
+    private final long price;
+    // Resting orders at this price in arrival (FIFO) order
+    private Node head;
+    private Node tail;
+    private int orderCount;
+    // Running aggregate so depth can be read without walking the queue
+    private long totalQuantity;
+
+    public PriceLevel(long price) {
+        this.price = price;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    // Oldest first
+    public Iterable<Order> getOrders() {
+        return () -> new Iterator<>() {
+            private Node current = head;
+
+            @Override
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            @Override
+            public Order next() {
+                if (current == null) throw new NoSuchElementException();
+                Order order = current.order;
+                current = current.next;
+                return order;
+            }
+        };
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public Node add(Order order) {
+        Node node = new Node(this, order);
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.prev = tail;
+        }
+        tail = node;
+        orderCount++;
+        totalQuantity += order.getQuantity();
+        return node;
+    }
+
+    public void remove(Node node) {
+        if (node.prev == null) head = node.next; else node.prev.next = node.next;
+        if (node.next == null) tail = node.prev; else node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        orderCount--;
+        totalQuantity -= node.order.getQuantity();
+    }
+
+    // Swaps in a new state of the same order without moving it in the queue
+    public void replace(Node node, Order order) {
+        totalQuantity += order.getQuantity() - node.order.getQuantity();
+        node.order = order;
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+}
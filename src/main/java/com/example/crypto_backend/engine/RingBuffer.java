@@ -0,0 +1,128 @@
+package com.example.crypto_backend.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Bounded multi-producer / single-consumer queue of pre-allocated slots.
+// Producers claim a sequence with a CAS, fill the slot and publish it, the single
+// consumer reads slots strictly in sequence order, so neither side takes a lock.
+// An idle consumer parks until a producer publishes; after close() no task runs and every
+// published or later submitted task fails instead.
+public class RingBuffer {
+
+    static final class Slot {
+        volatile long sequence = -1;
+        Supplier<Object> task;
+        CompletableFuture<Object> future;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long consumed = -1;
+    // Set while the consumer is parked, so producers only pay for an unpark when it sleeps
+    private volatile Thread parkedConsumer;
+    private volatile boolean closed;
+
+    public RingBuffer(int requestedSize) {
+        int size = Integer.highestOneBit(Math.max(2, requestedSize) * 2 - 1);
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void publish(Supplier<?> task, CompletableFuture<?> future) {
+        long seq;
+        while (true) {
+            if (closed) {
+                future.completeExceptionally(new RejectedExecutionException("The ring buffer is closed"));
+                return;
+            }
+            long current = claimed.get();
+            seq = current + 1;
+            if (seq - consumed > slots.length) {
+                // Buffer is full, wait for the consumer to free a slot
+                LockSupport.parkNanos(1_000);
+                continue;
+            }
+            if (claimed.compareAndSet(current, seq)) break;
+        }
+        Slot slot = slots[(int) (seq & mask)];
+        slot.task = (Supplier<Object>) task;
+        slot.future = (CompletableFuture<Object>) future;
+        slot.sequence = seq;
+        if (closed) {
+            // Claimed while the consumer was closing. close() may have missed this slot and no task runs
+            // after it, so fail it here; a second failure from close() is a no-op.
+            future.completeExceptionally(new RejectedExecutionException("The ring buffer is closed"));
+            return;
+        }
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // Parks the consumer until a task is published or the thread is unparked, consumer thread only
+    public void awaitPublished() {
+        parkedConsumer = Thread.currentThread();
+        // Checked after announcing the park: a producer publishing now either is seen here or sees us
+        if (!hasNext()) {
+            LockSupport.park(this);
+        }
+        parkedConsumer = null;
+    }
+
+    private boolean hasNext() {
+        long next = consumed + 1;
+        return slots[(int) (next & mask)].sequence == next;
+    }
+
+    // Stops taking tasks and fails every claimed one that has not run, consumer thread only
+    public void close(Throwable cause) {
+        closed = true;
+        long last = claimed.get();
+        for (long next = consumed + 1; next <= last; next++) {
+            Slot slot = slots[(int) (next & mask)];
+            while (slot.sequence != next) {
+                // Claimed, the producer is filling the slot
+                Thread.onSpinWait();
+            }
+            CompletableFuture<Object> future = slot.future;
+            slot.task = null;
+            slot.future = null;
+            consumed = next;
+            future.completeExceptionally(cause);
+        }
+    }
+
+    // Runs the next published task if there is one, must only be called from the consumer thread
+    public boolean runNext() {
+        long next = consumed + 1;
+        Slot slot = slots[(int) (next & mask)];
+        if (slot.sequence != next) return false;
+
+        Supplier<Object> task = slot.task;
+        CompletableFuture<Object> future = slot.future;
+        slot.task = null;
+        slot.future = null;
+        consumed = next;
+
+        try {
+            future.complete(task.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.crypto_backend.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.scale")
+public class ScaleProperties {
+    // Decimals of prices and USD balances, 2 means amounts are stored in cents
+    private int priceDecimals = 2;
+    // Decimals of coin quantities and balances unless overridden per coinId below
+    private int defaultQuantityDecimals = 8;
+    private Map<String, Integer> quantityDecimals = new HashMap<>();
+    // coinIds that can be traded, e.g. trading.scale.coins=btc,eth. Orders for anything else are refused,
+    // as each traded coin gets a book, metrics and a snapshot file. Coins with a quantity-decimals
+    // override count as listed.
+    private Set<String> coins = new HashSet<>();
+
+    public boolean isTradable(String coinId) {
+        return coins.contains(coinId) || quantityDecimals.containsKey(coinId);
+    }
+
+    public Set<String> tradableCoins() {
+        Set<String> tradable = new HashSet<>(coins);
+        tradable.addAll(quantityDecimals.keySet());
+        return tradable;
+    }
+
+    public long quantityFactor(String coinId) {
+        return FixedPoint.pow10(quantityDecimals.getOrDefault(coinId, defaultQuantityDecimals));
+    }
+
+    public long priceFactor() {
+        return FixedPoint.pow10(priceDecimals);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Everything one incoming order changes, collected in memory and written in one go
+public class Settlement {
+    // Latest state of every touched order, keyed by orderId
+    private final Map<String, Order> orders = new LinkedHashMap<>();
+    // userName -> assetId -> signed balance change
+    private final Map<String, Map<String, Long>> balanceDeltas = new LinkedHashMap<>();
+    // userName -> assetId -> amount of held funds given back (used by a fill or no longer needed)
+    private final Map<String, Map<String, Long>> holdReleases = new LinkedHashMap<>();
+    private final List<Transaction> transactions = new ArrayList<>();
+
+    public void saveOrder(Order order) {
+        orders.put(order.getOrderId(), order);
+    }
+
+    public Order getOrder(String orderId) {
+        return orders.get(orderId);
+    }
+
+    public void addBalanceDelta(String userName, String assetId, long delta) {
+        balanceDeltas.computeIfAbsent(userName, u -> new HashMap<>()).merge(assetId, delta, Long::sum);
+    }
+
+    public void releaseHold(String userName, String assetId, long amount) {
+        if (amount == 0) return;
+        holdReleases.computeIfAbsent(userName, u -> new HashMap<>()).merge(assetId, amount, Long::sum);
+    }
+
+    public void addTransaction(Transaction transaction) {
+        transactions.add(transaction);
+    }
+
+    // Folds a later settlement into this one, later order states win
+    public void merge(Settlement other) {
+        orders.putAll(other.orders);
+        other.balanceDeltas.forEach((userName, deltas) ->
+                deltas.forEach((assetId, delta) -> addBalanceDelta(userName, assetId, delta)));
+        other.holdReleases.forEach((userName, releases) ->
+                releases.forEach((assetId, amount) -> releaseHold(userName, assetId, amount)));
+        transactions.addAll(other.transactions);
+    }
+
+    public Collection<Order> getOrders() {
+        return orders.values();
+    }
+
+    public Map<String, Map<String, Long>> getBalanceDeltas() {
+        return balanceDeltas;
+    }
+
+    public Map<String, Map<String, Long>> getHoldReleases() {
+        return holdReleases;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public boolean hasFills() {
+        return !transactions.isEmpty();
+    }
+
+    // Mongo documents the settlement writes
+    public int getDocumentCount() {
+        return balanceDeltas.size() + orders.size() + transactions.size();
+    }
+}
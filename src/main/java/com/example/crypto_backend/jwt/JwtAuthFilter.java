@@ -6,16 +6,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import com.auth0.jwt.interfaces.DecodedJWT;
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -37,15 +31,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
 
             try {
-                DecodedJWT jwt = jwtUtil.validateToken(token);
-                String username = jwtUtil.extractUsername(token);
-                String role = jwtUtil.extractRole(token);
-
-                String authority = role.startsWith("ROLE_") ? role : "ROLE_" + role;
-                List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(authority));
+                // Single verification per token, repeated requests are served from the cache
+                JwtPrincipal principal = jwtUtil.authenticate(token);
 
                 UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(username, null, authorities);
+                        new UsernamePasswordAuthenticationToken(principal.username(), null, principal.authorities());
 
                 SecurityContextHolder.getContext().setAuthentication(auth);
 
@@ -54,11 +44,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 return;
             }
         }
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        System.out.println("Authentication before continue filtering: " + auth);
         filterChain.doFilter(request, response);
-        auth = SecurityContextHolder.getContext().getAuthentication();
-        System.out.println("Authentication after continue filtering: " + auth);
     }
 }
 
@@ -0,0 +1,9 @@
+package com.example.crypto_backend.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+// What a verified token grants, cached until the token expires
+public record JwtPrincipal(String username, List<GrantedAuthority> authorities, long expiresAtMillis) {
+}
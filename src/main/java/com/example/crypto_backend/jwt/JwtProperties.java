@@ -11,4 +11,6 @@ public class JwtProperties {
     private String secret;
     private Long expiration;
     private String issuer;
+    // Maximum number of verified tokens kept in memory
+    private int cacheSize = 10_000;
 }
\ No newline at end of file
@@ -1,21 +1,66 @@
 package com.example.crypto_backend.jwt;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier.BaseVerification;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class JwtUtil {
     private final JwtProperties jwtProperties;
     private final Algorithm algorithm;
+    // Verifiers are immutable and thread-safe, so one is built and shared
+    private final JWTVerifier verifier;
+    // Verified tokens keyed by their SHA-256 digest, least recently used first. Once full, each new
+    // token drops the eldest entry; expired entries are dropped when they are looked up or age out.
+    // Guarded by its own monitor, a lookup reorders the map.
+    private final Map<String, JwtPrincipal> verifiedTokens;
+    private final Clock clock;
+    private final Timer verifyTimer;
+    private final Counter cacheHits;
 
-    public JwtUtil(JwtProperties jwtProperties) {
+    @Autowired
+    public JwtUtil(JwtProperties jwtProperties, MeterRegistry registry) {
+        this(jwtProperties, registry, Clock.systemUTC());
+    }
+
+    JwtUtil(JwtProperties jwtProperties, MeterRegistry registry, Clock clock) {
         this.jwtProperties = jwtProperties;
+        this.clock = clock;
         this.algorithm = Algorithm.HMAC256(jwtProperties.getSecret());
+        this.verifier = ((BaseVerification) JWT.require(algorithm)
+                .withIssuer(jwtProperties.getIssuer()))
+                .build(clock);
+        int cacheSize = jwtProperties.getCacheSize();
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtPrincipal> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .description("Signature and claim verification of a token")
+                .register(registry);
+        this.cacheHits = Counter.builder("jwt.cache.hits")
+                .description("Tokens authenticated from the verified-token cache")
+                .register(registry);
     }
 
     public String generateToken(String username, String role) {
@@ -23,22 +68,59 @@ public class JwtUtil {
                 .withSubject(username)
                 .withClaim("role", role)
                 .withIssuer(jwtProperties.getIssuer())
-                .withExpiresAt(new Date(System.currentTimeMillis() + jwtProperties.getExpiration()))
+                .withExpiresAt(new Date(clock.millis() + jwtProperties.getExpiration()))
                 .sign(algorithm);
     }
 
     public DecodedJWT validateToken(String token) {
-        JWTVerifier verifier = JWT.require(algorithm)
-                .withIssuer(jwtProperties.getIssuer())
-                .build();
-        return verifier.verify(token);
+        return verifyTimer.record(() -> verifier.verify(token));
+    }
+
+    // Verifies the token once and remembers the result until it expires,
+    // later requests with the same token skip the HMAC check entirely
+    public JwtPrincipal authenticate(String token) {
+        String key = digest(token);
+        JwtPrincipal cached = cached(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        DecodedJWT jwt = validateToken(token);
+        String role = jwt.getClaim("role").asString();
+        String authority = role.startsWith("ROLE_") ? role : "ROLE_" + role;
+        Date expiresAt = jwt.getExpiresAt();
+        JwtPrincipal principal = new JwtPrincipal(jwt.getSubject(),
+                List.of(new SimpleGrantedAuthority(authority)),
+                expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime());
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(key, principal);
+        }
+        return principal;
+    }
+
+    // Unexpired principal of the token, null when it has to be verified
+    private JwtPrincipal cached(String key) {
+        synchronized (verifiedTokens) {
+            JwtPrincipal cached = verifiedTokens.get(key);
+            if (cached == null || cached.expiresAtMillis() > clock.millis()) return cached;
+            verifiedTokens.remove(key);
+            return null;
+        }
     }
 
-    public String extractUsername(String token) {
-        return validateToken(token).getSubject();
+    int cachedTokens() {
+        synchronized (verifiedTokens) {
+            return verifiedTokens.size();
+        }
     }
 
-    public String extractRole(String token) {
-        return validateToken(token).getClaim("role").asString();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,7 @@
+package com.example.crypto_backend.marketdata;
+
+import com.example.crypto_backend.Enum.OrderType;
+
+// New state of one price level, quantity 0 means the level is gone
+public record BookLevelEvent(String coinId, OrderType side, long price, long quantity, int orders) {
+}
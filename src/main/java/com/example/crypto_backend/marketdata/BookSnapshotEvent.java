@@ -0,0 +1,7 @@
+package com.example.crypto_backend.marketdata;
+
+import java.util.List;
+
+// Full book of a coin, sent when a subscriber joins; later changes arrive as BookLevelEvents
+public record BookSnapshotEvent(String coinId, List<BookLevelEvent> bids, List<BookLevelEvent> asks) {
+}
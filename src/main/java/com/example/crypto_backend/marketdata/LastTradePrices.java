@@ -0,0 +1,54 @@
+package com.example.crypto_backend.marketdata;
+
+import com.example.crypto_backend.Enum.CandleResolution;
+import com.example.crypto_backend.config.StartupProperties;
+import com.example.crypto_backend.model.Candle;
+import com.example.crypto_backend.model.Transaction;
+import com.example.crypto_backend.repository.CandleRepo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Last trade price per coinId, written by the matching path and read by valuations without touching the database
+@Component
+@DependsOn("fixedPointMigration")
+public class LastTradePrices {
+    private final Map<String, Long> prices = new ConcurrentHashMap<>();
+    private final MongoTemplate mongoTemplate;
+    private final CandleRepo candleRepo;
+    private final StartupProperties startup;
+
+    public LastTradePrices(MongoTemplate mongoTemplate, CandleRepo candleRepo, StartupProperties startup) {
+        this.mongoTemplate = mongoTemplate;
+        this.candleRepo = candleRepo;
+        this.startup = startup;
+    }
+
+    @PostConstruct
+    public void hydrate() {
+        if (!startup.isMongoEnabled()) return;
+        // Seed from the latest persisted minute candle of each coin, both lookups walk the candle index
+        for (String coinId : mongoTemplate.findDistinct(new Query(), "coinId", Candle.class, String.class)) {
+            candleRepo.findFirstByCoinIdAndResolutionOrderByOpenTimeDesc(coinId, CandleResolution.ONE_MINUTE)
+                    .ifPresent(candle -> prices.putIfAbsent(coinId, candle.getClose()));
+        }
+    }
+
+    public void onTrades(List<Transaction> transactions) {
+        // Transactions of one settlement are in matching order, the last one wins
+        for (Transaction transaction : transactions) {
+            prices.put(transaction.getCoinId(), transaction.getPrice());
+        }
+    }
+
+    // Fixed-point price, null if the coin has never traded
+    public Long get(String coinId) {
+        return prices.get(coinId);
+    }
+}
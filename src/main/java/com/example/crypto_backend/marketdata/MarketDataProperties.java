@@ -0,0 +1,21 @@
+package com.example.crypto_backend.marketdata;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.market-data")
+public class MarketDataProperties {
+    // Threads writing to subscriber connections
+    private int senderThreads = 4;
+    // Trades buffered per subscriber, a subscriber falling further behind is disconnected
+    private int subscriberBufferSize = 1024;
+    // Open streams across /market/stream and /orders/updates/stream, further subscriptions get a 503
+    private int maxSubscribers = 1000;
+    // A subscriber whose write blocks longer than this is disconnected
+    private long writeTimeoutMillis = 10_000;
+    // Connections are closed after this long, EventSource clients reconnect on their own
+    private long emitterTimeoutMillis = 30 * 60 * 1000L;
+}
@@ -0,0 +1,314 @@
+package com.example.crypto_backend.marketdata;
+
+import com.example.crypto_backend.model.Transaction;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Fans market data out to SSE subscribers.
+// Matching threads only append to a lock-free queue; a dispatcher thread routes events into
+// per-subscriber buffers and sender threads write them out. Level updates are conflated per
+// price, so a slow subscriber only ever receives the latest state of each level it fell behind on.
+// Trades and snapshots are never dropped: a subscriber whose buffer overflows, or whose write has
+// been blocked past the write timeout, is disconnected, and EventSource clients reconnect to a fresh
+// snapshot. A sender stuck on such a write is replaced, so it cannot hold up the other subscribers.
+@Component
+public class MarketDataPublisher implements Runnable {
+
+    // userName routes a private event to that user's order subscribers only
+    private record Envelope(String coinId, String name, Object payload, String levelKey, Subscriber target,
+                            String userName) {
+    }
+
+    public static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String coinId;
+        // Set for a user's order update stream, which receives none of the public market data
+        private final String userName;
+        private final Map<String, Envelope> levels = new LinkedHashMap<>();
+        private final Deque<Envelope> events = new ArrayDeque<>();
+        private boolean scheduled;
+        private volatile boolean closed;
+        // When the send in progress started, NOT_SENDING between sends and REPLACED once the dispatcher
+        // gave up on it; whichever of the sender and the dispatcher swaps the value first decides
+        private final AtomicLong sendStartedNanos = new AtomicLong(NOT_SENDING);
+
+        private Subscriber(SseEmitter emitter, String coinId, String userName) {
+            this.emitter = emitter;
+            this.coinId = coinId;
+            this.userName = userName;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        public String getCoinId() {
+            return coinId;
+        }
+    }
+
+    private static final long NOT_SENDING = Long.MIN_VALUE;
+    private static final long REPLACED = Long.MIN_VALUE + 1;
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final MarketDataProperties properties;
+    private final Queue<Envelope> inbound = new ConcurrentLinkedQueue<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor senders;
+    private final long writeTimeoutNanos;
+    private final Thread dispatcher;
+    // Set while the dispatcher is parked, so publishers only pay for an unpark when it sleeps
+    private volatile boolean dispatcherParked;
+    private volatile boolean running = true;
+    // Senders added to stand in for ones blocked on a timed-out write
+    private int replacementSenders;
+
+    public MarketDataPublisher(MarketDataProperties properties) {
+        this.properties = properties;
+        this.senders = new ThreadPoolExecutor(properties.getSenderThreads(), properties.getSenderThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "market-data-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getWriteTimeoutMillis());
+        this.dispatcher = new Thread(this, "market-data-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    // Subscribes to one coin, or to every coin when coinId is null
+    public Subscriber subscribe(String coinId) {
+        return subscribe(coinId, null);
+    }
+
+    // Updates of one user's orders
+    public Subscriber subscribeOrders(String userName) {
+        return subscribe(null, userName);
+    }
+
+    // Throws RejectedExecutionException once max-subscribers connections are open
+    private Subscriber subscribe(String coinId, String userName) {
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many market data subscribers");
+        }
+        SseEmitter emitter = newEmitter(properties.getEmitterTimeoutMillis());
+        Subscriber subscriber = new Subscriber(emitter, coinId, userName);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    public void publishTrades(List<Transaction> transactions) {
+        for (Transaction t : transactions) {
+            enqueue(new Envelope(t.getCoinId(), "trade",
+                    new TradeEvent(t.getCoinId(), t.getPrice(), t.getQuantity(), t.getMatchingTimeStamp()), null, null,
+                    null));
+        }
+    }
+
+    public void publishLevel(BookLevelEvent level) {
+        enqueue(new Envelope(level.coinId(), "level", level,
+                level.coinId() + ":" + level.side() + ":" + level.price(), null, null));
+    }
+
+    // Snapshot for a single subscriber, queued behind every change already published so none is lost
+    public void publishSnapshot(Subscriber subscriber, BookSnapshotEvent snapshot) {
+        enqueue(new Envelope(snapshot.coinId(), "snapshot", snapshot, null, subscriber, null));
+    }
+
+    // Conflated per order like levels per price, a slow subscriber gets each order's latest state
+    public void publishOrderUpdate(OrderUpdateEvent update) {
+        enqueue(new Envelope(null, "order", update, "order:" + update.orderId(), null, update.userName()));
+    }
+
+    private void enqueue(Envelope envelope) {
+        inbound.offer(envelope);
+        if (dispatcherParked) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    @Override
+    public void run() {
+        // Blocked writes are checked a few times per timeout
+        long sweepIntervalNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(10), writeTimeoutNanos / 4);
+        long nextSweep = System.nanoTime() + sweepIntervalNanos;
+        int idle = 0;
+        while (running) {
+            if (System.nanoTime() - nextSweep >= 0) {
+                disconnectBlockedWrites();
+                nextSweep = System.nanoTime() + sweepIntervalNanos;
+            }
+            Envelope envelope = inbound.poll();
+            if (envelope == null) {
+                if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    dispatcherParked = true;
+                    // Checked after announcing the park: a publish now either is seen here or unparks us
+                    if (inbound.isEmpty()) {
+                        LockSupport.parkNanos(this, Math.max(0, nextSweep - System.nanoTime()));
+                    }
+                    dispatcherParked = false;
+                }
+                continue;
+            }
+            idle = 0;
+            if (envelope.target() != null) {
+                offer(envelope.target(), envelope);
+                continue;
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (envelope.userName() != null) {
+                    if (envelope.userName().equals(subscriber.userName)) offer(subscriber, envelope);
+                } else if (subscriber.userName == null
+                        && (subscriber.coinId == null || subscriber.coinId.equals(envelope.coinId()))) {
+                    offer(subscriber, envelope);
+                }
+            }
+        }
+    }
+
+    private void offer(Subscriber subscriber, Envelope envelope) {
+        if (subscriber.closed) return;
+        boolean schedule;
+        synchronized (subscriber) {
+            if (envelope.levelKey() != null) {
+                subscriber.levels.put(envelope.levelKey(), envelope);
+            } else if (subscriber.events.size() >= properties.getSubscriberBufferSize()) {
+                // Dropping a trade would leave a silent gap in the client's tape, cut the connection instead
+                close(subscriber);
+                subscriber.events.clear();
+                subscriber.levels.clear();
+            } else {
+                if (envelope.payload() instanceof BookSnapshotEvent) {
+                    // The snapshot already contains every level change queued before it
+                    subscriber.levels.clear();
+                }
+                subscriber.events.addLast(envelope);
+            }
+            schedule = !subscriber.scheduled;
+            subscriber.scheduled = true;
+        }
+        if (schedule) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // A subscriber whose send has not returned within the write timeout is dropped, and its sender thread
+    // is replaced until that write fails or completes
+    private void disconnectBlockedWrites() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStartedNanos.get();
+            if (started != NOT_SENDING && started != REPLACED && now - started > writeTimeoutNanos
+                    && subscriber.sendStartedNanos.compareAndSet(started, REPLACED)) {
+                resizeSenders(1);
+                close(subscriber);
+            }
+        }
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        replacementSenders += delta;
+        int size = properties.getSenderThreads() + replacementSenders;
+        // The maximum may never drop below the core size, so the order depends on the direction
+        if (delta > 0) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            if (subscriber.closed) {
+                // Dropped by the dispatcher, or the connection is already gone and this is a no-op
+                end(subscriber);
+                return;
+            }
+            List<Envelope> batch;
+            synchronized (subscriber) {
+                if (subscriber.events.isEmpty() && subscriber.levels.isEmpty()) {
+                    subscriber.scheduled = false;
+                    return;
+                }
+                batch = new ArrayList<>(subscriber.events.size() + subscriber.levels.size());
+                batch.addAll(subscriber.events);
+                batch.addAll(subscriber.levels.values());
+                subscriber.events.clear();
+                subscriber.levels.clear();
+            }
+            try {
+                for (Envelope envelope : batch) {
+                    if (subscriber.closed) break;
+                    subscriber.sendStartedNanos.set(System.nanoTime());
+                    try {
+                        subscriber.emitter.send(SseEmitter.event().name(envelope.name()).data(envelope.payload()));
+                    } finally {
+                        if (subscriber.sendStartedNanos.getAndSet(NOT_SENDING) == REPLACED) {
+                            // A replacement took over while this write was blocked, give the thread back
+                            resizeSenders(-1);
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void end(Subscriber subscriber) {
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        senders.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+    }
+}
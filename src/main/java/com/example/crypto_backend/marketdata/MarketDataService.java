@@ -0,0 +1,59 @@
+package com.example.crypto_backend.marketdata;
+
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.OrderBook;
+import com.example.crypto_backend.engine.OrderBookManager;
+import com.example.crypto_backend.engine.OrderSequencer;
+import com.example.crypto_backend.engine.PriceLevel;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@Service
+public class MarketDataService {
+    private final MarketDataPublisher publisher;
+    private final OrderBookManager orderBookManager;
+    private final OrderSequencer orderSequencer;
+
+    public MarketDataService(MarketDataPublisher publisher, OrderBookManager orderBookManager,
+                             OrderSequencer orderSequencer) {
+        this.publisher = publisher;
+        this.orderBookManager = orderBookManager;
+        this.orderSequencer = orderSequencer;
+    }
+
+    public SseEmitter subscribe(String coinId) {
+        MarketDataPublisher.Subscriber subscriber = publisher.subscribe(coinId);
+        if (coinId != null) {
+            // Taken on the coin's engine thread, so it lines up exactly with the level updates that follow
+            orderSequencer.submit(coinId, () -> {
+                // Unknown coins get an empty snapshot, a subscription never creates a book
+                OrderBook book = orderBookManager.findBook(coinId);
+                publisher.publishSnapshot(subscriber, book == null
+                        ? new BookSnapshotEvent(coinId, List.of(), List.of())
+                        : snapshot(book));
+                return null;
+            });
+        }
+        return subscriber.getEmitter();
+    }
+
+    public SseEmitter subscribeOrders(String userName) {
+        return publisher.subscribeOrders(userName).getEmitter();
+    }
+
+    static BookSnapshotEvent snapshot(OrderBook book) {
+        return new BookSnapshotEvent(book.getCoinId(), levels(book, OrderType.BUY), levels(book, OrderType.SELL));
+    }
+
+    private static List<BookLevelEvent> levels(OrderBook book, OrderType side) {
+        return book.getLevels(side).stream()
+                .map(l -> toEvent(book.getCoinId(), side, l))
+                .toList();
+    }
+
+    static BookLevelEvent toEvent(String coinId, OrderType side, PriceLevel level) {
+        return new BookLevelEvent(coinId, side, level.getPrice(), level.getTotalQuantity(), level.getOrderCount());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.crypto_backend.marketdata;
+
+import com.example.crypto_backend.Enum.AcceptanceState;
+import com.example.crypto_backend.model.Order;
+
+// Latest known state of one of a user's orders. order is the stored order once PROCESSED,
+// error is only set when REJECTED.
+public record OrderUpdateEvent(String orderId, String userName, AcceptanceState state, Order order, String error) {
+}
@@ -0,0 +1,7 @@
+package com.example.crypto_backend.marketdata;
+
+import java.time.LocalDateTime;
+
+// Public view of an executed trade, without the counterparties
+public record TradeEvent(String coinId, long price, long quantity, LocalDateTime time) {
+}
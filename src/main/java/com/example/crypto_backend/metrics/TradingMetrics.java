@@ -0,0 +1,113 @@
+package com.example.crypto_backend.metrics;
+
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.OrderBook;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+// Meters of the order pipeline, scraped from /actuator/prometheus. Meters recorded on the engine
+// threads are created once here, so recording there never goes through the registry.
+@Component
+public class TradingMetrics {
+    public static final String SYNC = "sync";
+    public static final String ASYNC = "async";
+    public static final String BATCH = "batch";
+    public static final String USERS = "user";
+    public static final String ORDERS = "order";
+    public static final String TRANSACTIONS = "transaction";
+
+    private final MeterRegistry registry;
+    private final Timer candidateSelection;
+    private final DistributionSummary fillsPerOrder;
+    private final Map<String, Timer> settlementWrites;
+    // mode -> {rejected, accepted}
+    private final Map<String, Timer[]> acceptance;
+
+    public TradingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.candidateSelection = Timer.builder("trading.matching.candidates")
+                .description("Time to select the resting orders a new order can match against")
+                .register(registry);
+        this.fillsPerOrder = DistributionSummary.builder("trading.order.fills")
+                .description("Counter orders filled by one incoming order")
+                .register(registry);
+        this.settlementWrites = Map.of(
+                USERS, settlementWrite(registry, USERS),
+                ORDERS, settlementWrite(registry, ORDERS),
+                TRANSACTIONS, settlementWrite(registry, TRANSACTIONS));
+        this.acceptance = Map.of(
+                SYNC, acceptance(registry, SYNC),
+                ASYNC, acceptance(registry, ASYNC),
+                BATCH, acceptance(registry, BATCH));
+    }
+
+    private static Timer[] acceptance(MeterRegistry registry, String mode) {
+        Timer[] timers = new Timer[2];
+        for (boolean accepted : new boolean[]{false, true}) {
+            timers[accepted ? 1 : 0] = Timer.builder("trading.order.acceptance")
+                    .description("Order acceptance latency")
+                    .tag("mode", mode)
+                    .tag("outcome", accepted ? "accepted" : "rejected")
+                    .register(registry);
+        }
+        return timers;
+    }
+
+    private static Timer settlementWrite(MeterRegistry registry, String collection) {
+        return Timer.builder("trading.settlement.write")
+                .description("Settlement write latency per repository call")
+                .tag("collection", collection)
+                .register(registry);
+    }
+
+    // From the request reaching the service until the order is written and applied, or refused
+    public void recordAcceptance(String mode, boolean accepted, long startNanos) {
+        acceptance.get(mode)[accepted ? 1 : 0].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T timeCandidateSelection(Supplier<T> selection) {
+        return candidateSelection.record(selection);
+    }
+
+    public void recordFills(int fills) {
+        fillsPerOrder.record(fills);
+    }
+
+    // One timer per bulk call of a settlement, tagged with the collection it writes
+    public <T> T timeSettlementWrite(String collection, Supplier<T> write) {
+        return settlementWrites.get(collection).record(write);
+    }
+
+    // Gauges look the book up on every scrape, so a book replaced after a failed recovery is still seen.
+    // Sizes are read without the engine's ordering, a scrape may be one change behind.
+    public void registerBook(String coinId, Supplier<OrderBook> book) {
+        Gauge.builder("trading.book.orders", book, sizeOf(OrderBook::size))
+                .description("Resting orders in the book")
+                .tag("coin", coinId)
+                .register(registry);
+        for (OrderType side : OrderType.values()) {
+            Gauge.builder("trading.book.levels", book, sizeOf(b -> b.getLevels(side).size()))
+                    .description("Price levels on one side of the book")
+                    .tag("coin", coinId)
+                    .tag("side", side.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    private static ToDoubleFunction<Supplier<OrderBook>> sizeOf(ToIntFunction<OrderBook> size) {
+        return supplier -> {
+            OrderBook book = supplier.get();
+            return book == null ? 0 : size.applyAsInt(book);
+        };
+    }
+}
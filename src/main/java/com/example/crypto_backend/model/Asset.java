@@ -1,10 +1,11 @@
 package com.example.crypto_backend.model;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
-import org.springframework.data.annotation.Id;
 
 @Data
 public class Asset {
-    @Id
     private String assetId;
-    private Double balance;
+    // Fixed-point, scaled by the asset's decimals (price decimals for usd)
+    @Schema(description = "Integer units: cents for usd, 10^-decimals of the coin otherwise")
+    private long balance;
 }
@@ -0,0 +1,33 @@
+package com.example.crypto_backend.model;
+
+import com.example.crypto_backend.Enum.CandleResolution;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document (collection = "candle")
+@CompoundIndex(name = "coin_resolution_time", def = "{'coinId': 1, 'resolution': 1, 'openTime': 1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Candle {
+    // coinId:resolution:openTime, so rewriting a bucket replaces it
+    @Id
+    private String candleId;
+    private String coinId;
+    private CandleResolution resolution;
+    // Start of the bucket, buckets are aligned to UTC
+    private Instant openTime;
+    // Fixed-point, same units as Transaction.price and Transaction.quantity
+    private long open;
+    private long high;
+    private long low;
+    private long close;
+    private long volume;
+    private long tradeCount;
+}
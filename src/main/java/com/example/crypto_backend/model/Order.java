@@ -2,27 +2,59 @@ package com.example.crypto_backend.model;
 
 import com.example.crypto_backend.Enum.OrderStatus;
 import com.example.crypto_backend.Enum.OrderType;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 
 import java.time.LocalDateTime;
 
 @Document (collection = "order")
+@CompoundIndexes({
+        // Matching candidates: asks are walked by ascending price, bids by descending price, oldest first
+        @CompoundIndex(name = "ask_candidates", def = "{'coinId': 1, 'status': 1, 'type': 1, 'price': 1, 'timeStamp': 1}"),
+        @CompoundIndex(name = "bid_candidates", def = "{'coinId': 1, 'status': 1, 'type': 1, 'price': -1, 'timeStamp': 1}"),
+        // Newest-first listings paged by (timeStamp, _id), globally and per user
+        @CompoundIndex(name = "recent", def = "{'timeStamp': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_history", def = "{'userName': 1, 'timeStamp': -1, '_id': -1}")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Order {
     @Id
     private String orderId;
     private String coinId;
     private String userName;
     private OrderType type;
-    private Double price;
-    private Double quantity;
+    // Fixed-point: price in units of 10^-trading.scale.price-decimals USD per coin,
+    // quantity in units of 10^-decimals of the coin (see ScaleProperties). Fractional JSON numbers are rejected.
+    @Schema(description = "Integer units of 10^-trading.scale.price-decimals USD, cents by default")
+    private long price;
+    @Schema(description = "Integer units of 10^-decimals of the coin, 1e-8 by default")
+    private long quantity;
     private OrderStatus status;
     private LocalDateTime timeStamp;
+    // Time of the latest write, set by SettlementService. Unlike timeStamp it moves on amends and fills,
+    // so the book recovery can re-read everything written after its snapshots and journal.
+    @JsonIgnore
+    @Indexed
+    private LocalDateTime lastModified;
+
+    public Order(String orderId, String coinId, String userName, OrderType type, long price, long quantity,
+                 OrderStatus status, LocalDateTime timeStamp) {
+        this.orderId = orderId;
+        this.coinId = coinId;
+        this.userName = userName;
+        this.type = type;
+        this.price = price;
+        this.quantity = quantity;
+        this.status = status;
+        this.timeStamp = timeStamp;
+    }
 }
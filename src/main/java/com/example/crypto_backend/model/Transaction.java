@@ -1,15 +1,23 @@
 package com.example.crypto_backend.model;
 
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.Date;
 
 @Document (collection = "transaction")
+@CompoundIndexes({
+        // Per-user history, newest first, with _id as tie breaker for keyset pagination
+        @CompoundIndex(name = "buyer_history", def = "{'buyerUserName': 1, 'matchingTimeStamp': -1, '_id': -1}"),
+        @CompoundIndex(name = "seller_history", def = "{'sellerUserName': 1, 'matchingTimeStamp': -1, '_id': -1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,8 +26,11 @@ public class Transaction {
     private String transactionId;
     private String sellerUserName;
     private String buyerUserName;
-    private Double quantity;
+    // Fixed-point, same units as Order.quantity and Order.price
+    @Schema(description = "Integer units of 10^-decimals of the coin, 1e-8 by default")
+    private long quantity;
     private String coinId;
-    private Double price;
+    @Schema(description = "Integer units of 10^-trading.scale.price-decimals USD, cents by default")
+    private long price;
     private LocalDateTime matchingTimeStamp;
 }
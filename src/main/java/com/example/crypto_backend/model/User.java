@@ -12,6 +12,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Document(collection = "user")
@@ -32,6 +33,7 @@ public class User {
     private String name;
     private String role;
     private List<String> coinList;
-    private List<Asset> assets;
+    // Keyed by assetId so a single balance can be updated in place
+    private Map<String, Asset> assets;
 
 }
@@ -0,0 +1,38 @@
+package com.example.crypto_backend.repository;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+// Builds the guarded query and $inc update used to move balances on a user document
+public final class BalanceUpdates {
+
+    private BalanceUpdates() {
+    }
+
+    public static Query guardedQuery(String userName, Map<String, Long> deltas) {
+        Query query = Query.query(Criteria.where("userName").is(userName));
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            // Server-side guard: a debit only applies if the balance covers it
+            if (delta.getValue() < 0) {
+                query.addCriteria(Criteria.where(balancePath(delta.getKey())).gte(-delta.getValue()));
+            }
+        }
+        return query;
+    }
+
+    public static Update increment(Map<String, Long> deltas) {
+        Update update = new Update();
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            update.inc(balancePath(delta.getKey()), delta.getValue());
+            update.set("assets." + delta.getKey() + ".assetId", delta.getKey());
+        }
+        return update;
+    }
+
+    private static String balancePath(String assetId) {
+        return "assets." + assetId + ".balance";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.crypto_backend.repository;
+
+import com.example.crypto_backend.Enum.CandleResolution;
+import com.example.crypto_backend.model.Candle;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CandleRepo extends MongoRepository<Candle, String> {
+    List<Candle> findByCoinIdAndResolutionAndOpenTimeBetweenOrderByOpenTimeAsc(
+            String coinId, CandleResolution resolution, Instant from, Instant to);
+
+    Optional<Candle> findFirstByCoinIdAndResolutionOrderByOpenTimeDesc(String coinId, CandleResolution resolution);
+}
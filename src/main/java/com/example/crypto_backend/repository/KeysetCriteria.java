@@ -0,0 +1,19 @@
+package com.example.crypto_backend.repository;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDateTime;
+
+// Criteria for "strictly older than (time, id)" when paging newest first by (time, id)
+public final class KeysetCriteria {
+
+    private KeysetCriteria() {
+    }
+
+    public static Criteria before(String timeField, String idField, LocalDateTime time, String id) {
+        return new Criteria().orOperator(
+                Criteria.where(timeField).lt(time),
+                Criteria.where(timeField).is(time).and(idField).lt(new ObjectId(id)));
+    }
+}
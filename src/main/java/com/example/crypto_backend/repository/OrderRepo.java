@@ -1,15 +1,30 @@
 package com.example.crypto_backend.repository;
 
+import com.example.crypto_backend.Enum.OrderStatus;
 import com.example.crypto_backend.model.Order;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface OrderRepo extends MongoRepository<Order, Integer> {
-    Optional<List<Order>> getAllOrdersByUserName(String userName, Pageable pageable);
+public interface OrderRepo extends MongoRepository<Order, String>, OrderRepoCustom {
+    List<Order> findAllByStatusOrderByTimeStampAsc(OrderStatus status);
+    List<Order> findAllByCoinIdAndStatusOrderByTimeStampAsc(String coinId, OrderStatus status);
+    List<Order> findAllByLastModifiedGreaterThanEqualOrderByLastModifiedAsc(LocalDateTime from);
+    List<Order> findAllByUserNameAndStatus(String userName, OrderStatus status);
+
+    // Resting asks a BUY at maxPrice can take, cheapest and then oldest first
+    @Query(value = "{ 'coinId': ?0, 'status': 'PENDING', 'type': 'SELL', 'price': { $lte: ?1 } }",
+            sort = "{ 'price': 1, 'timeStamp': 1 }")
+    List<Order> findAskCandidates(String coinId, long maxPrice, Pageable pageable);
+
+    // Resting bids a SELL at minPrice can take, highest and then oldest first
+    @Query(value = "{ 'coinId': ?0, 'status': 'PENDING', 'type': 'BUY', 'price': { $gte: ?1 } }",
+            sort = "{ 'price': -1, 'timeStamp': 1 }")
+    List<Order> findBidCandidates(String coinId, long minPrice, Pageable pageable);
 }
@@ -0,0 +1,15 @@
+package com.example.crypto_backend.repository;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderRepoCustom {
+    // Orders newest first by (timeStamp, orderId), strictly after (beforeTime, beforeId) when given.
+    // Null filters are ignored. Never runs a count.
+    List<Order> findSlice(String userName, OrderStatus status, String coinId, OrderType type,
+                          LocalDateTime beforeTime, String beforeId, int limit);
+}
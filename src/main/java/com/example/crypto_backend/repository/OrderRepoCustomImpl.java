@@ -0,0 +1,36 @@
+package com.example.crypto_backend.repository;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class OrderRepoCustomImpl implements OrderRepoCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public OrderRepoCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Order> findSlice(String userName, OrderStatus status, String coinId, OrderType type,
+                                 LocalDateTime beforeTime, String beforeId, int limit) {
+        Query query = new Query();
+        if (userName != null) query.addCriteria(Criteria.where("userName").is(userName));
+        if (status != null) query.addCriteria(Criteria.where("status").is(status));
+        if (coinId != null) query.addCriteria(Criteria.where("coinId").is(coinId));
+        if (type != null) query.addCriteria(Criteria.where("type").is(type));
+        if (beforeTime != null) {
+            query.addCriteria(KeysetCriteria.before("timeStamp", "orderId", beforeTime, beforeId));
+        }
+        return mongoTemplate.find(query
+                .with(Sort.by(Sort.Direction.DESC, "timeStamp", "orderId"))
+                .limit(limit), Order.class);
+    }
+}
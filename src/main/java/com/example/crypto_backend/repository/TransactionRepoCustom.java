@@ -0,0 +1,11 @@
+package com.example.crypto_backend.repository;
+
+import com.example.crypto_backend.model.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransactionRepoCustom {
+    // Trades where the user is buyer or seller, newest first, strictly after (beforeTime, beforeId) when given
+    List<Transaction> findHistory(String userName, LocalDateTime beforeTime, String beforeId, int limit);
+}
@@ -0,0 +1,37 @@
+package com.example.crypto_backend.repository;
+
+import com.example.crypto_backend.model.Transaction;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TransactionRepoCustomImpl implements TransactionRepoCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public TransactionRepoCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Transaction> findHistory(String userName, LocalDateTime beforeTime, String beforeId, int limit) {
+        // Each $or branch is served by its own (side, matchingTimeStamp, _id) index and merged in sort order
+        Criteria criteria = new Criteria().orOperator(
+                side("buyerUserName", userName, beforeTime, beforeId),
+                side("sellerUserName", userName, beforeTime, beforeId));
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "matchingTimeStamp", "transactionId"))
+                .limit(limit);
+        return mongoTemplate.find(query, Transaction.class);
+    }
+
+    private static Criteria side(String field, String userName, LocalDateTime beforeTime, String beforeId) {
+        Criteria criteria = Criteria.where(field).is(userName);
+        if (beforeTime == null) return criteria;
+        return new Criteria().andOperator(criteria,
+                KeysetCriteria.before("matchingTimeStamp", "transactionId", beforeTime, beforeId));
+    }
+}
@@ -2,10 +2,17 @@ package com.example.crypto_backend.repository;
 
 import com.example.crypto_backend.model.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepo extends MongoRepository<User, String> {
     Optional<User> getUserByUserName(String userName);
+
+    // Only what a valuation needs
+    @Query(value = "{ 'userName': { $in: ?0 } }", fields = "{ 'userName': 1, 'assets': 1 }")
+    List<User> findAssetsByUserNameIn(Collection<String> userNames);
 }
@@ -0,0 +1,15 @@
+package com.example.crypto_backend.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.password-hashing")
+public class PasswordHashingProperties {
+    // Threads doing BCrypt work, kept below the core count so trading requests always get CPU
+    private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Requests allowed to wait for a hashing thread before new ones get a 503
+    private int queueCapacity = 32;
+}
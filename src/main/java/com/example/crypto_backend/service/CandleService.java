@@ -0,0 +1,155 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.Enum.CandleResolution;
+import com.example.crypto_backend.config.StartupProperties;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.model.Candle;
+import com.example.crypto_backend.model.Transaction;
+import com.example.crypto_backend.repository.CandleRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class CandleService {
+    // Longest range a single query returns, older candles of a wider range are left out
+    static final int MAX_CANDLES = 1500;
+
+    private final CandleRepo candleRepo;
+    private final ScaleProperties scale;
+    private final StartupProperties startup;
+    // Buckets are cut in UTC whatever the server's zone
+    private final Clock clock;
+    // Open bucket per coinId:resolution, updated by the coin's engine thread
+    private final Map<String, Candle> openCandles = new ConcurrentHashMap<>();
+    // Closed buckets are written off the matching thread
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "candle-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CandleService(CandleRepo candleRepo, ScaleProperties scale, StartupProperties startup) {
+        this(candleRepo, scale, startup, Clock.systemUTC());
+    }
+
+    CandleService(CandleRepo candleRepo, ScaleProperties scale, StartupProperties startup, Clock clock) {
+        this.candleRepo = candleRepo;
+        this.scale = scale;
+        this.startup = startup;
+        this.clock = clock;
+    }
+
+    // The previous run flushed its open buckets on shutdown; the ones still current are continued,
+    // so the engine threads never have to read a candle back
+    @PostConstruct
+    public void preload() {
+        if (!startup.isMongoEnabled()) return;
+        Instant now = clock.instant();
+        List<String> candleIds = new ArrayList<>();
+        for (String coinId : scale.tradableCoins()) {
+            for (CandleResolution resolution : CandleResolution.values()) {
+                candleIds.add(candleId(key(coinId, resolution), bucketStart(now, resolution)));
+            }
+        }
+        for (Candle candle : candleRepo.findAllById(candleIds)) {
+            openCandles.putIfAbsent(key(candle.getCoinId(), candle.getResolution()), candle);
+        }
+    }
+
+    public void onTrades(List<Transaction> transactions) {
+        if (transactions.isEmpty()) return;
+        Instant now = clock.instant();
+        for (Transaction transaction : transactions) {
+            for (CandleResolution resolution : CandleResolution.values()) {
+                update(transaction, resolution, now);
+            }
+        }
+    }
+
+    public List<Candle> getCandles(String coinId, CandleResolution resolution, Instant from, Instant to) {
+        Instant earliest = to.minus(resolution.getDuration().multipliedBy(MAX_CANDLES - 1));
+        Instant start = from.isBefore(earliest) ? earliest : from;
+        List<Candle> candles = new ArrayList<>(
+                candleRepo.findByCoinIdAndResolutionAndOpenTimeBetweenOrderByOpenTimeAsc(coinId, resolution, start, to));
+        // The open bucket only lives in memory until it closes
+        Candle open = openCandles.get(key(coinId, resolution));
+        if (open != null) {
+            Candle current = copy(open);
+            if (!current.getOpenTime().isBefore(start) && !current.getOpenTime().isAfter(to)) {
+                candles.removeIf(c -> c.getOpenTime().equals(current.getOpenTime()));
+                candles.add(current);
+            }
+        }
+        return candles;
+    }
+
+    private void update(Transaction transaction, CandleResolution resolution, Instant time) {
+        String key = key(transaction.getCoinId(), resolution);
+        Instant openTime = bucketStart(time, resolution);
+        Candle candle = openCandles.get(key);
+
+        if (candle == null || candle.getOpenTime().isBefore(openTime)) {
+            if (candle != null) {
+                Candle closed = copy(candle);
+                writer.execute(() -> candleRepo.save(closed));
+            }
+            candle = new Candle(candleId(key, openTime), transaction.getCoinId(), resolution, openTime,
+                    transaction.getPrice(), transaction.getPrice(), transaction.getPrice(), transaction.getPrice(),
+                    0, 0);
+            openCandles.put(key, candle);
+        }
+
+        synchronized (candle) {
+            candle.setHigh(Math.max(candle.getHigh(), transaction.getPrice()));
+            candle.setLow(Math.min(candle.getLow(), transaction.getPrice()));
+            candle.setClose(transaction.getPrice());
+            candle.setVolume(candle.getVolume() + transaction.getQuantity());
+            candle.setTradeCount(candle.getTradeCount() + 1);
+        }
+    }
+
+    // Readers get a consistent copy while the engine thread keeps updating the original
+    private static Candle copy(Candle candle) {
+        synchronized (candle) {
+            return new Candle(candle.getCandleId(), candle.getCoinId(), candle.getResolution(), candle.getOpenTime(),
+                    candle.getOpen(), candle.getHigh(), candle.getLow(), candle.getClose(),
+                    candle.getVolume(), candle.getTradeCount());
+        }
+    }
+
+    static Instant bucketStart(Instant time, CandleResolution resolution) {
+        long seconds = time.getEpochSecond();
+        long size = resolution.getDuration().getSeconds();
+        return Instant.ofEpochSecond(seconds - Math.floorMod(seconds, size));
+    }
+
+    private static String key(String coinId, CandleResolution resolution) {
+        return coinId + ":" + resolution.getCode();
+    }
+
+    private static String candleId(String key, Instant openTime) {
+        return key + ":" + openTime;
+    }
+
+    @PreDestroy
+    public void flush() {
+        // Keep the partially filled buckets so a restart continues them
+        openCandles.values().forEach(candle -> {
+            Candle snapshot = copy(candle);
+            writer.execute(() -> candleRepo.save(snapshot));
+        });
+        writer.shutdown();
+    }
+}
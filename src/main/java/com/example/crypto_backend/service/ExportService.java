@@ -0,0 +1,147 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.Transaction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Streams whole collections straight from a Mongo cursor to the response.
+// Only one cursor batch is held at a time, and a slow client simply slows down the cursor.
+@Service
+public class ExportService {
+    private static final int CURSOR_BATCH_SIZE = 1000;
+
+    public enum Format {
+        NDJSON, CSV;
+
+        // Case-insensitive, null for anything that is not a format
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) return format;
+            }
+            return null;
+        }
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private static final List<Column<Transaction>> TRANSACTION_COLUMNS = List.of(
+            new Column<>("transactionId", Transaction::getTransactionId),
+            new Column<>("matchingTimeStamp", Transaction::getMatchingTimeStamp),
+            new Column<>("coinId", Transaction::getCoinId),
+            new Column<>("price", Transaction::getPrice),
+            new Column<>("quantity", Transaction::getQuantity),
+            new Column<>("buyerUserName", Transaction::getBuyerUserName),
+            new Column<>("sellerUserName", Transaction::getSellerUserName));
+
+    private static final List<Column<Order>> ORDER_COLUMNS = List.of(
+            new Column<>("orderId", Order::getOrderId),
+            new Column<>("timeStamp", Order::getTimeStamp),
+            new Column<>("coinId", Order::getCoinId),
+            new Column<>("userName", Order::getUserName),
+            new Column<>("type", Order::getType),
+            new Column<>("price", Order::getPrice),
+            new Column<>("quantity", Order::getQuantity),
+            new Column<>("status", Order::getStatus));
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportTransactions(String coinId, LocalDateTime from, LocalDateTime to, Format format,
+                                   OutputStream out) throws IOException {
+        export(filter("matchingTimeStamp", coinId, from, to), Transaction.class, TRANSACTION_COLUMNS, format, out);
+    }
+
+    public void exportOrders(String coinId, LocalDateTime from, LocalDateTime to, Format format,
+                             OutputStream out) throws IOException {
+        export(filter("timeStamp", coinId, from, to), Order.class, ORDER_COLUMNS, format, out);
+    }
+
+    private static Query filter(String timeField, String coinId, LocalDateTime from, LocalDateTime to) {
+        Query query = new Query();
+        if (coinId != null) {
+            query.addCriteria(Criteria.where("coinId").is(coinId));
+        }
+        if (from != null || to != null) {
+            Criteria time = Criteria.where(timeField);
+            if (from != null) time.gte(from);
+            if (to != null) time.lt(to);
+            query.addCriteria(time);
+        }
+        // Natural order on purpose: a sort without a matching index would buffer the whole result on the server
+        return query.cursorBatchSize(CURSOR_BATCH_SIZE);
+    }
+
+    private <T> void export(Query query, Class<T> type, List<Column<T>> columns, Format format,
+                            OutputStream out) throws IOException {
+        try (Stream<T> rows = mongoTemplate.stream(query, type)) {
+            if (format == Format.NDJSON) {
+                writeNdjson(rows, out);
+            } else {
+                writeCsv(rows, columns, out);
+            }
+        }
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            // The separator only goes between records, the last one gets its newline below
+            boolean any = false;
+            for (T row : (Iterable<T>) rows::iterator) {
+                writer.write(row);
+                any = true;
+            }
+            writer.flush();
+            if (any) out.write('\n');
+        }
+        out.flush();
+    }
+
+    private <T> void writeCsv(Stream<T> rows, List<Column<T>> columns, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns.stream().map(Column::name).toList()));
+        writer.write('\n');
+        for (T row : (Iterable<T>) rows::iterator) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write(csvValue(columns.get(i).value().apply(row)));
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
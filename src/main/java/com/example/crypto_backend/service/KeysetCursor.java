@@ -0,0 +1,31 @@
+package com.example.crypto_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// Position after the last returned item: its timestamp plus its id to break ties.
+// Handed to clients as an opaque token.
+public record KeysetCursor(LocalDateTime time, String id) {
+
+    public String encode() {
+        String raw = time.toInstant(ZoneOffset.UTC).toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long millis = Long.parseLong(raw.substring(0, separator));
+            String id = raw.substring(separator + 1);
+            if (id.isEmpty()) throw new IllegalArgumentException("Cursor without an id");
+            return new KeysetCursor(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                    (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
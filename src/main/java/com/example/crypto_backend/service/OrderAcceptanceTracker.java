@@ -0,0 +1,73 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.Enum.AcceptanceState;
+import com.example.crypto_backend.engine.EngineProperties;
+import com.example.crypto_backend.marketdata.OrderUpdateEvent;
+import com.example.crypto_backend.model.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Asynchronously accepted orders that Mongo cannot answer for yet: queued ones until they are written,
+// rejected ones for a while so the client can still find out why.
+@Component
+public class OrderAcceptanceTracker {
+    private record Entry(OrderUpdateEvent event, long expiresAtMillis) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // orderIds of the tracked rejections, oldest first. Ids of rejections that already expired stay
+    // until their turn comes, so the queue bounds the rejections in `entries` as well.
+    private final Queue<String> rejectionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger rejectionCount = new AtomicInteger();
+    private final long retentionMillis;
+    private final int maxRejections;
+
+    public OrderAcceptanceTracker(EngineProperties properties) {
+        this.retentionMillis = properties.getRejectionRetentionMillis();
+        this.maxRejections = properties.getMaxTrackedRejections();
+    }
+
+    public void queued(Order order) {
+        entries.put(order.getOrderId(), new Entry(
+                new OrderUpdateEvent(order.getOrderId(), order.getUserName(), AcceptanceState.QUEUED, null, null),
+                Long.MAX_VALUE));
+    }
+
+    // Written to Mongo, from here on the stored order is the answer
+    public void processed(String orderId) {
+        entries.remove(orderId);
+    }
+
+    public OrderUpdateEvent rejected(Order order, String error) {
+        OrderUpdateEvent event = new OrderUpdateEvent(order.getOrderId(), order.getUserName(),
+                AcceptanceState.REJECTED, null, error);
+        entries.put(order.getOrderId(), new Entry(event, System.currentTimeMillis() + retentionMillis));
+        rejectionOrder.add(order.getOrderId());
+        if (rejectionCount.incrementAndGet() > maxRejections) evictOldestRejection();
+        return event;
+    }
+
+    public OrderUpdateEvent get(String orderId) {
+        Entry entry = entries.get(orderId);
+        if (entry == null) return null;
+        if (entry.expiresAtMillis() < System.currentTimeMillis()) {
+            entries.remove(orderId, entry);
+            return null;
+        }
+        return entry.event();
+    }
+
+    // Rejections share one retention, so the oldest is also the first to expire
+    private void evictOldestRejection() {
+        String orderId = rejectionOrder.poll();
+        if (orderId == null) return;
+        rejectionCount.decrementAndGet();
+        entries.computeIfPresent(orderId,
+                (id, entry) -> entry.event().state() == AcceptanceState.REJECTED ? null : entry);
+    }
+}
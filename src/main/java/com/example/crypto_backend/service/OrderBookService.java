@@ -0,0 +1,75 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.DTO.OrderBookDepth;
+import com.example.crypto_backend.engine.EngineProperties;
+import com.example.crypto_backend.engine.OrderBook;
+import com.example.crypto_backend.engine.OrderBookManager;
+import com.example.crypto_backend.engine.OrderSequencer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class OrderBookService {
+    private final OrderBookManager orderBookManager;
+    private final OrderSequencer orderSequencer;
+    private final EngineProperties engineProperties;
+    private final ObjectMapper objectMapper;
+    // Serialized depth per coin and level count, tagged with the book version it was built from
+    private final Map<String, CachedDepth> cache = new ConcurrentHashMap<>();
+
+    private record CachedDepth(long version, byte[] json) {
+    }
+
+    private record VersionedDepth(long version, OrderBookDepth depth) {
+    }
+
+    public OrderBookService(OrderBookManager orderBookManager, OrderSequencer orderSequencer,
+                            EngineProperties engineProperties, ObjectMapper objectMapper) {
+        this.orderBookManager = orderBookManager;
+        this.orderSequencer = orderSequencer;
+        this.engineProperties = engineProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    // Depth as ready-to-send JSON. Served from the cache until the book changes, then rebuilt once.
+    public byte[] getDepthJson(String coinId, int levels) {
+        int depthLevels = Math.max(1, Math.min(levels, engineProperties.getMaxDepthLevels()));
+        OrderBook book = orderBookManager.findBook(coinId);
+        if (book == null) {
+            return serialize(new OrderBookDepth(coinId, null, null, List.of(), List.of()));
+        }
+
+        String key = coinId + ":" + depthLevels;
+        CachedDepth cached = cache.get(key);
+        if (cached != null && cached.version() == book.getVersion()) {
+            return cached.json();
+        }
+
+        // The book belongs to its engine thread, so the levels are copied there
+        VersionedDepth fresh;
+        try {
+            fresh = orderSequencer.submit(coinId,
+                    () -> new VersionedDepth(book.getVersion(), book.depth(depthLevels))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+        byte[] json = serialize(fresh.depth());
+        cache.put(key, new CachedDepth(fresh.version(), json));
+        return json;
+    }
+
+    private byte[] serialize(OrderBookDepth depth) {
+        try {
+            return objectMapper.writeValueAsBytes(depth);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing order book depth", e);
+        }
+    }
+}
@@ -1,142 +1,512 @@
 package com.example.crypto_backend.service;
 
+import com.example.crypto_backend.DTO.BatchOrderResult;
+import com.example.crypto_backend.DTO.CursorPage;
+import com.example.crypto_backend.DTO.OrderAmendment;
+import com.example.crypto_backend.Enum.AcceptanceState;
 import com.example.crypto_backend.Enum.OrderStatus;
 import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.config.MongoConcurrencyLimiter;
+import com.example.crypto_backend.engine.BalanceLedger;
+import com.example.crypto_backend.engine.FixedPoint;
+import com.example.crypto_backend.engine.OrderBookManager;
+import com.example.crypto_backend.engine.OrderSequencer;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.engine.Settlement;
+import com.example.crypto_backend.marketdata.LastTradePrices;
+import com.example.crypto_backend.marketdata.MarketDataPublisher;
+import com.example.crypto_backend.marketdata.OrderUpdateEvent;
+import com.example.crypto_backend.metrics.TradingMetrics;
 import com.example.crypto_backend.model.*;
 import com.example.crypto_backend.repository.OrderRepo;
-import com.mongodb.MongoWriteException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.bson.types.ObjectId;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
 public class OrderService {
     private final OrderRepo orderRepo;
-    private final UserService userService;
-    private final TransactionService transactionService;
+    private final BalanceLedger balanceLedger;
+    private final SettlementService settlementService;
+    private final OrderBookManager orderBookManager;
+    private final OrderSequencer orderSequencer;
+    private final ScaleProperties scaleProperties;
+    private final MarketDataPublisher marketDataPublisher;
+    private final CandleService candleService;
+    private final LastTradePrices lastTradePrices;
+    private final MongoConcurrencyLimiter mongoLimiter;
+    private final OrderAcceptanceTracker acceptanceTracker;
+    private final TradingMetrics metrics;
 
-    public OrderService(OrderRepo orderRepo, UserService userService, TransactionService transactionService) {
+    public OrderService(OrderRepo orderRepo, BalanceLedger balanceLedger, SettlementService settlementService,
+                        OrderBookManager orderBookManager, OrderSequencer orderSequencer,
+                        ScaleProperties scaleProperties, MarketDataPublisher marketDataPublisher,
+                        CandleService candleService, LastTradePrices lastTradePrices,
+                        MongoConcurrencyLimiter mongoLimiter, OrderAcceptanceTracker acceptanceTracker,
+                        TradingMetrics metrics) {
         this.orderRepo = orderRepo;
-        this.userService = userService;
-        this.transactionService = transactionService;
+        this.balanceLedger = balanceLedger;
+        this.settlementService = settlementService;
+        this.orderBookManager = orderBookManager;
+        this.orderSequencer = orderSequencer;
+        this.scaleProperties = scaleProperties;
+        this.marketDataPublisher = marketDataPublisher;
+        this.candleService = candleService;
+        this.lastTradePrices = lastTradePrices;
+        this.mongoLimiter = mongoLimiter;
+        this.acceptanceTracker = acceptanceTracker;
+        this.metrics = metrics;
     }
 
     public Order createOrder(Order order) {
+        long start = System.nanoTime();
+        boolean accepted = false;
         try {
-            User user = userService.getUserByUserName(order.getUserName());
-            if (order.getType() == OrderType.BUY){
-                // Check if user has enough USD money
-                List<Asset> userAssets = user.getAssets();
-                Asset usdAsset = userAssets.stream()
-                        .filter(asset -> asset.getAssetId().equals("usd"))
-                        .findFirst()
-                        .orElseThrow(() -> new RuntimeException("USD currency not found for user: " + user.getUserName()));
-                if (usdAsset.getBalance() < order.getPrice() * order.getQuantity()) {
-                    throw new RuntimeException("Not enough USD balance for the order");
-                }
-            } else if (order.getType() == OrderType.SELL) {
-                // Check if user has enough coins
-                List<Asset> userAssets = user.getAssets();
-                Asset coinAsset = userAssets.stream()
-                        .filter(asset -> asset.getAssetId().equals(order.getCoinId()))
-                        .findFirst()
-                        .orElseThrow(() -> new RuntimeException("Coin not found for user: " + user.getUserName()));
-                if (coinAsset.getBalance() < order.getQuantity()) {
-                    throw new RuntimeException("Not enough coin balance for the order");
+            validate(order);
+            assignId(order);
+            // Hand the order to the engine that owns its coin and wait for the result
+            Order placed = orderSequencer.submit(order.getCoinId(), () -> placeOrder(order)).join();
+            accepted = true;
+            return placed;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        } finally {
+            metrics.recordAcceptance(TradingMetrics.SYNC, accepted, start);
+        }
+    }
+
+    // Checks the order, gives it an id and queues it on its engine without waiting for the match.
+    // The outcome is reported through getOrderStatus and the owner's order update stream.
+    public String submitOrder(Order order) {
+        long start = System.nanoTime();
+        validate(order);
+        assignId(order);
+        String orderId = order.getOrderId();
+        acceptanceTracker.queued(order);
+        orderSequencer.submit(order.getCoinId(), () -> placeOrder(order)).whenComplete((placed, error) -> {
+            metrics.recordAcceptance(TradingMetrics.ASYNC, error == null, start);
+            if (error == null) {
+                acceptanceTracker.processed(orderId);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            marketDataPublisher.publishOrderUpdate(acceptanceTracker.rejected(order, cause.getMessage()));
+        });
+        return orderId;
+    }
+
+    public OrderUpdateEvent getOrderStatus(String orderId, String userName) {
+        OrderUpdateEvent status = acceptanceTracker.get(orderId);
+        if (status == null) {
+            Order stored = mongoLimiter.call(() -> orderRepo.findById(orderId))
+                    .orElseThrow(() -> new NoSuchElementException("Order not found: " + orderId));
+            status = processed(stored);
+        }
+        if (!status.userName().equals(userName)) {
+            throw new AccessDeniedException("You can only see your own orders.");
+        }
+        return status;
+    }
+
+    // Orders are grouped by coin and each group is matched in one pass on its coin's engine.
+    // Results come back in request order, a rejected order does not affect the others.
+    public List<BatchOrderResult> createOrders(List<Order> orders) {
+        long start = System.nanoTime();
+        BatchOrderResult[] results = new BatchOrderResult[orders.size()];
+        Map<String, List<Integer>> byCoin = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (order == null || order.getCoinId() == null) {
+                results[i] = new BatchOrderResult(i, null, "Coin is required");
+                continue;
+            }
+            assignId(order);
+            byCoin.computeIfAbsent(order.getCoinId(), c -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<List<BatchOrderResult>>> passes = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> group : byCoin.entrySet()) {
+            passes.add(orderSequencer.submit(group.getKey(),
+                    () -> placeBatch(group.getKey(), group.getValue(), orders)));
+        }
+        for (CompletableFuture<List<BatchOrderResult>> pass : passes) {
+            for (BatchOrderResult result : pass.join()) {
+                results[result.index()] = result;
+            }
+        }
+        // Each order of the batch counts with the latency of the whole request
+        for (BatchOrderResult result : results) {
+            metrics.recordAcceptance(TradingMetrics.BATCH, result.error() == null, start);
+        }
+        return Arrays.asList(results);
+    }
+
+    // Takes the rest of a resting order off the book and gives its hold back
+    public Order cancelOrder(String orderId, String userName) {
+        return onOrderEngine(orderId, () -> {
+            Order resting = findResting(orderId, userName);
+            Settlement settlement = new Settlement();
+            settlement.saveOrder(withStatus(resting, OrderStatus.CANCELLED));
+            settlement.releaseHold(resting.getUserName(), balanceLedger.holdAsset(resting),
+                    balanceLedger.holdAmount(resting, resting.getQuantity()));
+            settleWithoutFills(settlement, resting.getCoinId());
+            return settlement.getOrder(orderId);
+        });
+    }
+
+    // A quantity reduction at the same price keeps the order's queue position. Any other change
+    // cancels the order and places a new one, which goes to the back of its level and may match.
+    // Both happen in one settlement: if the new order is refused, the original stays as it was.
+    public Order amendOrder(String orderId, OrderAmendment amendment, String userName) {
+        return onOrderEngine(orderId, () -> {
+            Order resting = findResting(orderId, userName);
+            long price = amendment.price() == null ? resting.getPrice() : amendment.price();
+            long quantity = amendment.quantity() == null ? resting.getQuantity() : amendment.quantity();
+            if (price <= 0 || quantity <= 0) {
+                throw new RuntimeException("Price and quantity must be positive");
+            }
+            if (price == resting.getPrice() && quantity == resting.getQuantity()) {
+                return resting;
+            }
+            if (price == resting.getPrice() && quantity < resting.getQuantity()) {
+                Order reduced = new Order(resting.getOrderId(), resting.getCoinId(), resting.getUserName(),
+                        resting.getType(), price, quantity, OrderStatus.PENDING, resting.getTimeStamp());
+                Settlement settlement = new Settlement();
+                settlement.saveOrder(reduced);
+                settlement.releaseHold(resting.getUserName(), balanceLedger.holdAsset(resting),
+                        balanceLedger.holdAmount(resting, resting.getQuantity())
+                                - balanceLedger.holdAmount(resting, quantity));
+                settleWithoutFills(settlement, resting.getCoinId());
+                return reduced;
+            }
+            return replaceOrder(resting, new Order(new ObjectId().toHexString(), resting.getCoinId(),
+                    resting.getUserName(), resting.getType(), price, quantity, OrderStatus.PENDING, null));
+        });
+    }
+
+    private Order replaceOrder(Order resting, Order replacement) {
+        validate(replacement);
+        String holdAsset = balanceLedger.holdAsset(resting);
+        long released = balanceLedger.holdAmount(resting, resting.getQuantity());
+        long reserved = balanceLedger.holdAmount(replacement, replacement.getQuantity());
+        if (!balanceLedger.replaceHold(resting.getUserName(), holdAsset, released, reserved)) {
+            throw insufficientBalance(replacement);
+        }
+
+        Settlement settlement = new Settlement();
+        settlement.saveOrder(withStatus(resting, OrderStatus.CANCELLED));
+        try {
+            matchReserved(new Placement(replacement, holdAsset, reserved), settlement);
+            settle(settlement, resting.getCoinId());
+        } catch (RuntimeException e) {
+            // Give the original its hold back, unconditionally since it was covered before the swap
+            balanceLedger.release(resting.getUserName(), holdAsset, reserved - released);
+            throw e;
+        }
+
+        balanceLedger.apply(settlement);
+        orderBookManager.apply(settlement.getOrders());
+        publish(settlement);
+        return settlement.getOrder(replacement.getOrderId());
+    }
+
+    private <T> T onOrderEngine(String orderId, Supplier<T> task) {
+        // Resting orders are indexed in memory, Mongo is only asked when the book is off or the order is not resting
+        String coinId = orderBookManager.findCoin(orderId);
+        if (coinId == null) {
+            coinId = mongoLimiter.call(() -> orderRepo.findById(orderId))
+                    .orElseThrow(() -> new NoSuchElementException("Order not found: " + orderId))
+                    .getCoinId();
+        }
+        try {
+            return orderSequencer.submit(coinId, task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    // Runs on the order's engine thread, so the state read here cannot change until the task is done
+    private Order findResting(String orderId, String userName) {
+        Order order = orderBookManager.isEnabled()
+                ? orderBookManager.getRestingOrder(orderId)
+                : orderRepo.findById(orderId).filter(o -> o.getStatus() == OrderStatus.PENDING).orElse(null);
+        if (order == null) {
+            throw new IllegalStateException("Order is no longer open: " + orderId);
+        }
+        if (!order.getUserName().equals(userName)) {
+            throw new AccessDeniedException("You can only change your own orders.");
+        }
+        return order;
+    }
+
+    private void settleWithoutFills(Settlement settlement, String coinId) {
+        settle(settlement, coinId);
+        balanceLedger.apply(settlement);
+        orderBookManager.apply(settlement.getOrders());
+        publishOrders(settlement);
+    }
+
+    // Fails closed: a write that was not atomic may have left part of the settlement in Mongo,
+    // so the coin's book is rebuilt from what is stored before the error goes back
+    private void settle(Settlement settlement, String coinId) {
+        try {
+            settlementService.settle(settlement);
+        } catch (RuntimeException e) {
+            if (!settlementService.isAtomic(settlement)) orderBookManager.reload(coinId);
+            throw e;
+        }
+    }
+
+    private record Placement(Order order, String holdAsset, long reserved) {
+    }
+
+    private Order placeOrder(Order order) {
+        Settlement settlement = new Settlement();
+        Placement placement = match(order, settlement);
+        try {
+            settle(settlement, order.getCoinId());
+        } catch (RuntimeException e) {
+            release(placement);
+            throw e;
+        }
+
+        // Ledger and book only follow once the writes have succeeded
+        balanceLedger.apply(settlement);
+        orderBookManager.apply(settlement.getOrders());
+        publish(settlement);
+        return settlement.getOrder(order.getOrderId());
+    }
+
+    private List<BatchOrderResult> placeBatch(String coinId, List<Integer> indexes, List<Order> orders) {
+        List<BatchOrderResult> results = new ArrayList<>(indexes.size());
+        if (!orderBookManager.isEnabled()) {
+            // Candidates come from Mongo then, so every order has to be written before the next one matches
+            for (int index : indexes) {
+                try {
+                    results.add(new BatchOrderResult(index, placeOrder(orders.get(index)), null));
+                } catch (RuntimeException e) {
+                    results.add(new BatchOrderResult(index, null, e.getMessage()));
                 }
             }
-            if (order.getStatus() == OrderStatus.PENDING)
-                checkAuction(order);
-            order.setTimeStamp(LocalDateTime.now());
-            return orderRepo.save(order);
-        } catch (MongoWriteException e) {
-            throw new RuntimeException("Error writing to the database", e);
-        }
-    }
-
-    public Page<Order> getAllOrders(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return orderRepo.findAll(pageable);
-    }
-
-    public List<Order> getAllOrdersByUserName(String userName, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return orderRepo.getAllOrdersByUserName(userName, pageable)
-                .orElseThrow(() -> new RuntimeException("User hasn't made any orders"));
-    }
-
-    private void checkAuction(Order newOrder){
-        // Filter candidates list
-        List<Order> candidates = orderRepo.findAll().stream()
-                .filter(o -> !o.getUserName().equals(newOrder.getUserName()))
-                .filter(o -> o.getCoinId().equals(newOrder.getCoinId()))
-                .filter(o -> o.getStatus() == OrderStatus.PENDING)
-                .filter(o -> o.getType() != newOrder.getType())
-                .filter(o -> newOrder.getType() == OrderType.BUY ?
-                        o.getPrice() <= newOrder.getPrice() : o.getPrice() >= newOrder.getPrice())
-                .sorted((o1, o2) -> {
-                    // Sort by price
-                    int comp = newOrder.getType() == OrderType.BUY ?
-                            o1.getPrice().compareTo(o2.getPrice()) :
-                            o2.getPrice().compareTo(o1.getPrice());
-                    // Sort by timestamp
-                    if (comp != 0) return comp;
-                    return o1.getTimeStamp().compareTo(o2.getTimeStamp());
-                })
-                .toList();
-        System.out.println("candidates = " + candidates);
-        if (candidates.isEmpty()) {
-            System.out.println("No matching orders found.");
-        }
-        else {
+            return results;
+        }
+
+        Settlement batch = new Settlement();
+        List<Placement> placements = new ArrayList<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (int index : indexes) {
+            Settlement own = new Settlement();
+            try {
+                placements.add(match(orders.get(index), own));
+            } catch (RuntimeException e) {
+                results.add(new BatchOrderResult(index, null, e.getMessage()));
+                continue;
+            }
+            // Applied ahead of the write, so later orders of the pass see this one's fills and resting remainder
+            balanceLedger.apply(own);
+            orderBookManager.applyUnwritten(own.getOrders());
+            batch.merge(own);
+            accepted.add(index);
+        }
+        if (accepted.isEmpty()) return results;
+
+        try {
+            settlementService.settle(batch);
+        } catch (RuntimeException e) {
+            // Nothing of the pass was written, put the ledger and the book back to what is persisted
+            balanceLedger.revert(batch);
+            placements.forEach(this::release);
+            orderBookManager.reload(coinId);
+            for (int index : accepted) {
+                results.add(new BatchOrderResult(index, null, e.getMessage()));
+            }
+            return results;
+        }
+
+        orderBookManager.journal(batch.getOrders());
+        publish(batch);
+        for (int i = 0; i < accepted.size(); i++) {
+            int index = accepted.get(i);
+            results.add(new BatchOrderResult(index, batch.getOrder(placements.get(i).order().getOrderId()), null));
+        }
+        return results;
+    }
+
+    // Always a fresh id, so a client supplied one can never overwrite an existing order
+    private static void assignId(Order order) {
+        order.setOrderId(new ObjectId().toHexString());
+    }
+
+    private void validate(Order order) {
+        if (order.getCoinId() == null) {
+            throw new RuntimeException("Coin is required");
+        }
+        if (!scaleProperties.isTradable(order.getCoinId())) {
+            // Checked before anything reaches an engine, an unknown coin never gets a book
+            throw new RuntimeException("Unknown coin");
+        }
+        if (order.getPrice() <= 0 || order.getQuantity() <= 0) {
+            throw new RuntimeException("Price and quantity must be positive");
+        }
+        if ("usd".equals(order.getCoinId())) {
+            throw new RuntimeException("USD cannot be traded against itself");
+        }
+        if (order.getType() == null) {
+            throw new RuntimeException("Order type is required");
+        }
+        if (order.getStatus() == null) {
+            throw new RuntimeException("Order status is required");
+        }
+    }
+
+    // Validates, reserves and matches one order into the settlement. The hold is released again if this fails.
+    private Placement match(Order order, Settlement settlement) {
+        validate(order);
+
+        // Put the funds on hold up front, an in-memory check instead of a read of the user document
+        String holdAsset = balanceLedger.holdAsset(order);
+        long reserved = balanceLedger.holdAmount(order, order.getQuantity());
+        if (!balanceLedger.reserve(order.getUserName(), holdAsset, reserved)) {
+            throw insufficientBalance(order);
+        }
+        Placement placement = new Placement(order, holdAsset, reserved);
+        try {
+            matchReserved(placement, settlement);
+        } catch (RuntimeException e) {
+            release(placement);
+            throw e;
+        }
+        return placement;
+    }
+
+    // Matches an order whose hold is already in place, the caller undoes the hold if this fails
+    private void matchReserved(Placement placement, Settlement settlement) {
+        Order order = placement.order();
+        order.setTimeStamp(LocalDateTime.now());
+
+        // Match in memory first, the caller writes every resulting change together
+        settlement.saveOrder(order);
+        if (order.getStatus() == OrderStatus.PENDING)
+            checkAuction(order, settlement);
+        else
+            settlement.releaseHold(order.getUserName(), placement.holdAsset(), placement.reserved());
+        balanceLedger.ensureLoaded(settlement.getBalanceDeltas().keySet());
+    }
+
+    private static RuntimeException insufficientBalance(Order order) {
+        return new RuntimeException(order.getType() == OrderType.BUY ?
+                "Not enough USD balance for the order" : "Not enough coin balance for the order");
+    }
+
+    private void release(Placement placement) {
+        balanceLedger.release(placement.order().getUserName(), placement.holdAsset(), placement.reserved());
+    }
+
+    private void publish(Settlement settlement) {
+        marketDataPublisher.publishTrades(settlement.getTransactions());
+        candleService.onTrades(settlement.getTransactions());
+        lastTradePrices.onTrades(settlement.getTransactions());
+        publishOrders(settlement);
+    }
+
+    // Every written order state goes to its owner, counterparties included
+    private void publishOrders(Settlement settlement) {
+        for (Order order : settlement.getOrders()) {
+            marketDataPublisher.publishOrderUpdate(processed(order));
+        }
+    }
+
+    private static OrderUpdateEvent processed(Order order) {
+        return new OrderUpdateEvent(order.getOrderId(), order.getUserName(), AcceptanceState.PROCESSED, order, null);
+    }
+
+    public CursorPage<Order> getAllOrders(String cursor, int size, OrderStatus status, String coinId,
+                                          OrderType type) {
+        return getOrders(null, cursor, size, status, coinId, type);
+    }
+
+    public CursorPage<Order> getAllOrdersByUserName(String userName, String cursor, int size, OrderStatus status,
+                                                    String coinId, OrderType type) {
+        return getOrders(userName, cursor, size, status, coinId, type);
+    }
+
+    private CursorPage<Order> getOrders(String userName, String cursor, int size, OrderStatus status,
+                                        String coinId, OrderType type) {
+        // Keyset slice by (timeStamp, orderId): no count query and no skip, so every page costs the same
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Order> orders = mongoLimiter.call(() -> orderRepo.findSlice(userName, status, coinId, type,
+                after == null ? null : after.time(), after == null ? null : after.id(), size));
+        if (orders.size() < size) {
+            return new CursorPage<>(orders, null);
+        }
+        Order last = orders.get(orders.size() - 1);
+        return new CursorPage<>(orders, new KeysetCursor(last.getTimeStamp(), last.getOrderId()).encode());
+    }
+
+    private void checkAuction(Order newOrder, Settlement settlement){
+        // Candidates come from the resting order book, already in price-time priority
+        List<Order> candidates = metrics.timeCandidateSelection(() -> orderBookManager.findCandidates(newOrder));
+        int fills = 0;
+        if (!candidates.isEmpty()) {
             // Auction orders in candidates
-            Double newOrderRemainQuant = newOrder.getQuantity();
+            long newOrderRemainQuant = newOrder.getQuantity();
+            long tradePrice = newOrder.getPrice();
             for (Order candidate : candidates) {
                 if (newOrderRemainQuant == 0) break;
+                fills++;
 
-                Double tradePrice = newOrder.getPrice();
                 if (newOrderRemainQuant >= candidate.getQuantity()) {
-                    Double matchedQuant = candidate.getQuantity();
-                    updateCompletedOrders(candidate, matchedQuant);
-                    updateTransaction(matchedQuant, newOrder.getCoinId(), tradePrice, newOrder, candidate);
+                    long matchedQuant = candidate.getQuantity();
+                    updateCompletedOrders(candidate, matchedQuant, tradePrice, settlement);
+                    updateTransaction(matchedQuant, newOrder.getCoinId(), tradePrice, newOrder, candidate, settlement);
                     newOrderRemainQuant -= matchedQuant;
                 }
                 else {
-                    Double matchedQuant = newOrderRemainQuant;
-                    updatePartiallyCompletedOrders(candidate, matchedQuant);
-                    updateTransaction(matchedQuant, newOrder.getCoinId(), tradePrice, newOrder, candidate);
-                    newOrderRemainQuant = 0.0;
+                    long matchedQuant = newOrderRemainQuant;
+                    updatePartiallyCompletedOrders(candidate, matchedQuant, tradePrice, settlement);
+                    updateTransaction(matchedQuant, newOrder.getCoinId(), tradePrice, newOrder, candidate, settlement);
+                    newOrderRemainQuant = 0;
                 }
             }
             if (newOrderRemainQuant == 0){
-                updateCompletedOrders(newOrder, newOrder.getQuantity());
+                updateCompletedOrders(newOrder, newOrder.getQuantity(), tradePrice, settlement);
             }
             else {
-                updatePartiallyCompletedOrders(newOrder, newOrder.getQuantity() - newOrderRemainQuant);
+                updatePartiallyCompletedOrders(newOrder, newOrder.getQuantity() - newOrderRemainQuant, tradePrice, settlement);
             }
         }
+        metrics.recordFills(fills);
     }
 
-    private void updateCompletedOrders(Order order, Double matchedQuant) {
+    private void updateCompletedOrders(Order order, long matchedQuant, long tradePrice, Settlement settlement) {
         // Update order
-        order.setStatus(OrderStatus.COMPLETED);
-        createOrder(order);
+        settlement.saveOrder(withStatus(order, OrderStatus.COMPLETED));
 
         // Update user assets
-        updateUserAsset(order, matchedQuant);
+        updateUserAsset(order, matchedQuant, tradePrice, settlement);
     }
 
-    private void updatePartiallyCompletedOrders(Order order, Double matchedQuant){
+    private void updatePartiallyCompletedOrders(Order order, long matchedQuant, long tradePrice,
+                                                Settlement settlement){
         // Update partially completed order
-        order.setStatus(OrderStatus.PARTIALLY_COMPLETED);
-        createOrder(order);
+        settlement.saveOrder(withStatus(order, OrderStatus.PARTIALLY_COMPLETED));
 
         // Create a new order for the remaining quantity
         Order newOrder = new Order();
+        newOrder.setOrderId(new ObjectId().toHexString());
         newOrder.setQuantity(order.getQuantity() - matchedQuant);
         newOrder.setPrice(order.getPrice());
         newOrder.setCoinId(order.getCoinId());
@@ -144,57 +514,37 @@ public class OrderService {
         newOrder.setUserName(order.getUserName());
         newOrder.setStatus(OrderStatus.PENDING);
         newOrder.setTimeStamp(LocalDateTime.now());
-        createOrder(newOrder);
+        settlement.saveOrder(newOrder);
 
         // Update user assets
-        updateUserAsset(order, matchedQuant);
-    }
-
-    private void updateUserAsset(Order order, Double matchedQuant){
-        User user = userService.getUserByUserName(order.getUserName());
-        List<Asset> userAssets = user.getAssets();
-
-        // Update user's USD balance
-        if (userAssets.stream().anyMatch(asset -> asset.getAssetId().equals("usd"))) {
-            Asset money = userAssets.stream()
-                    .filter(asset -> asset.getAssetId().equals("usd"))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("USD currency not found for user: " + user.getUserName()));
-            userAssets.remove(money);
-            money.setBalance(order.getType().equals(OrderType.BUY) ?
-                    money.getBalance() - order.getPrice() : money.getBalance() + order.getPrice());
-            userAssets.add(money);
-        }
-        else {
-            Asset newAsset = new Asset();
-            newAsset.setAssetId("usd");
-            newAsset.setBalance(order.getPrice());
-            userAssets.add(newAsset);
-        }
-
-        // Update user's asset balance based on the order type
-        if (userAssets.stream().anyMatch(asset -> asset.getAssetId().equals(order.getCoinId()))) {
-            Asset newAsset = userAssets.stream()
-                    .filter(asset -> asset.getAssetId().equals(order.getCoinId()))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Asset not found for user: " + user.getUserName()));
-            userAssets.remove(newAsset);
-            newAsset.setBalance(order.getType().equals(OrderType.BUY) ?
-                    newAsset.getBalance() + matchedQuant : newAsset.getBalance() - matchedQuant);
-            userAssets.add(newAsset);
-        }
-        else {
-            Asset newAsset = new Asset();
-            newAsset.setAssetId(order.getCoinId());
-            newAsset.setBalance(matchedQuant);
-            userAssets.add(newAsset);
-        }
-
-        user.setAssets(userAssets);
-        userService.createUser(user);
-    }
-
-    private void updateTransaction (Double quant, String coinId, Double tradePrice, Order newOrder, Order counterOrder) {
+        updateUserAsset(order, matchedQuant, tradePrice, settlement);
+    }
+
+    // Resting orders are shared with the book, so status changes go on a copy until the settlement is written
+    private Order withStatus(Order order, OrderStatus status) {
+        return new Order(order.getOrderId(), order.getCoinId(), order.getUserName(), order.getType(),
+                order.getPrice(), order.getQuantity(), status, LocalDateTime.now());
+    }
+
+    private void updateUserAsset(Order order, long matchedQuant, long tradePrice, Settlement settlement){
+        // The hold shrinks to what the still open quantity needs
+        settlement.releaseHold(order.getUserName(), balanceLedger.holdAsset(order),
+                balanceLedger.holdAmount(order, order.getQuantity())
+                        - balanceLedger.holdAmount(order, order.getQuantity() - matchedQuant));
+
+        long cost = notional(order.getCoinId(), tradePrice, matchedQuant);
+        long usdDelta = order.getType().equals(OrderType.BUY) ? -cost : cost;
+        long coinDelta = order.getType().equals(OrderType.BUY) ? matchedQuant : -matchedQuant;
+        settlement.addBalanceDelta(order.getUserName(), "usd", usdDelta);
+        settlement.addBalanceDelta(order.getUserName(), order.getCoinId(), coinDelta);
+    }
+
+    private long notional(String coinId, long price, long quantity) {
+        return FixedPoint.notional(price, quantity, scaleProperties.quantityFactor(coinId));
+    }
+
+    private void updateTransaction (long quant, String coinId, long tradePrice, Order newOrder, Order counterOrder,
+                                    Settlement settlement) {
         Transaction transaction = new Transaction();
         transaction.setQuantity(quant);
         transaction.setCoinId(coinId);
@@ -204,12 +554,6 @@ public class OrderService {
         transaction.setSellerUserName(
                 newOrder.getType() == OrderType.SELL ? newOrder.getUserName() : counterOrder.getUserName());
         transaction.setMatchingTimeStamp(LocalDateTime.now());
-        transactionService.createTransaction(transaction);
-
-        System.out.printf("Transaction done: %f %s %.2f $ (Buyer: %s, Seller: %s)%n",
-                quant, coinId, tradePrice,
-                newOrder.getType() == OrderType.BUY ? newOrder.getOrderId() : counterOrder.getOrderId(),
-                newOrder.getType() == OrderType.SELL ? newOrder.getOrderId() : counterOrder.getOrderId()
-        );
+        settlement.addTransaction(transaction);
     }
 }
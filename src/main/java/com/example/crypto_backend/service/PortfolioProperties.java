@@ -0,0 +1,17 @@
+package com.example.crypto_backend.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.portfolio")
+public class PortfolioProperties {
+    // Threads loading and valuing users in bulk mode
+    private int parallelism = 4;
+    // Users fetched per query in bulk mode
+    private int batchSize = 200;
+    // Upper bound of users in one bulk request
+    private int maxUsers = 10000;
+}
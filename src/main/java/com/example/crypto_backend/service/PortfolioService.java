@@ -0,0 +1,101 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.DTO.AssetValuation;
+import com.example.crypto_backend.DTO.PortfolioValuation;
+import com.example.crypto_backend.engine.FixedPoint;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.marketdata.LastTradePrices;
+import com.example.crypto_backend.model.Asset;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.UserRepo;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Values balances at the last trade price: one read of the user document, then O(assets) in memory
+@Service
+public class PortfolioService {
+    private final UserRepo userRepo;
+    private final LastTradePrices lastTradePrices;
+    private final ScaleProperties scaleProperties;
+    private final PortfolioProperties properties;
+    private final ExecutorService executor;
+
+    public PortfolioService(UserRepo userRepo, LastTradePrices lastTradePrices, ScaleProperties scaleProperties,
+                            PortfolioProperties properties) {
+        this.userRepo = userRepo;
+        this.lastTradePrices = lastTradePrices;
+        this.scaleProperties = scaleProperties;
+        this.properties = properties;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()), r -> {
+            Thread thread = new Thread(r, "portfolio-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public PortfolioValuation getPortfolio(String userName) {
+        User user = userRepo.getUserByUserName(userName)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userName));
+        return value(user);
+    }
+
+    // Unknown user names are left out of the result
+    public List<PortfolioValuation> getPortfolios(List<String> userNames) {
+        if (userNames.size() > properties.getMaxUsers()) {
+            throw new IllegalArgumentException("At most " + properties.getMaxUsers() + " users per request");
+        }
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<CompletableFuture<List<PortfolioValuation>>> batches = new ArrayList<>();
+        for (int from = 0; from < userNames.size(); from += batchSize) {
+            List<String> batch = userNames.subList(from, Math.min(from + batchSize, userNames.size()));
+            batches.add(CompletableFuture.supplyAsync(
+                    () -> userRepo.findAssetsByUserNameIn(batch).stream().map(this::value).toList(), executor));
+        }
+        List<PortfolioValuation> result = new ArrayList<>(userNames.size());
+        for (CompletableFuture<List<PortfolioValuation>> batch : batches) {
+            result.addAll(batch.join());
+        }
+        return result;
+    }
+
+    private PortfolioValuation value(User user) {
+        List<AssetValuation> assets = new ArrayList<>();
+        long total = 0;
+        if (user.getAssets() != null) {
+            // The map key is authoritative, an asset first created by an $inc has no assetId field
+            for (Map.Entry<String, Asset> asset : user.getAssets().entrySet()) {
+                AssetValuation valuation = value(asset.getKey(), asset.getValue().getBalance());
+                if (valuation.value() != null) total += valuation.value();
+                assets.add(valuation);
+            }
+        }
+        return new PortfolioValuation(user.getUserName(), assets, total);
+    }
+
+    private AssetValuation value(String assetId, long balance) {
+        if ("usd".equals(assetId)) {
+            return new AssetValuation(assetId, balance, scaleProperties.priceFactor(), balance);
+        }
+        Long price = lastTradePrices.get(assetId);
+        if (price == null) {
+            return new AssetValuation(assetId, balance, null, null);
+        }
+        long value = FixedPoint.notional(price, balance, scaleProperties.quantityFactor(assetId));
+        return new AssetValuation(assetId, balance, price, value);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.crypto_backend.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "trading.settlement")
+public class SettlementProperties {
+    // Write each settlement in a multi-document transaction, turn off for a standalone mongod
+    private boolean transactional = true;
+}
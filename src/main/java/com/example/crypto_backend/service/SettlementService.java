@@ -0,0 +1,87 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.engine.Settlement;
+import com.example.crypto_backend.metrics.TradingMetrics;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.Transaction;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.BalanceUpdates;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Service
+public class SettlementService {
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SettlementProperties properties;
+    private final TradingMetrics metrics;
+
+    public SettlementService(MongoTemplate mongoTemplate, MongoTransactionManager transactionManager,
+                             SettlementProperties properties, TradingMetrics metrics) {
+        this.mongoTemplate = mongoTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    // Whether a failed settle() leaves nothing of the settlement behind. A single document is written
+    // atomically on its own, anything more needs the transaction.
+    public boolean isAtomic(Settlement settlement) {
+        return properties.isTransactional() || settlement.getDocumentCount() <= 1;
+    }
+
+    // Every settlement touching more than one document, e.g. the cancel and the new order of an amendment,
+    // is written in one transaction. Without transactions a failure can leave part of it written.
+    public void settle(Settlement settlement) {
+        try {
+            if (settlement.getDocumentCount() <= 1 || !properties.isTransactional()) {
+                write(settlement);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> write(settlement));
+        } catch (MongoException e) {
+            throw new RuntimeException("Error writing to the database", e);
+        }
+    }
+
+    private void write(Settlement settlement) {
+        // Balances first: they are the only writes that can be refused
+        if (!settlement.getBalanceDeltas().isEmpty()) {
+            BulkOperations users = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (Map.Entry<String, Map<String, Long>> entry : settlement.getBalanceDeltas().entrySet()) {
+                users.updateOne(BalanceUpdates.guardedQuery(entry.getKey(), entry.getValue()),
+                        BalanceUpdates.increment(entry.getValue()));
+            }
+            BulkWriteResult result = metrics.timeSettlementWrite(TradingMetrics.USERS, users::execute);
+            if (result.getMatchedCount() != settlement.getBalanceDeltas().size()) {
+                throw new RuntimeException("Insufficient balance to settle the order");
+            }
+        }
+
+        BulkOperations orders = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : settlement.getOrders()) {
+            order.setLastModified(now);
+            orders.replaceOne(Query.query(Criteria.where("orderId").is(order.getOrderId())), order,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        metrics.timeSettlementWrite(TradingMetrics.ORDERS, orders::execute);
+
+        if (!settlement.getTransactions().isEmpty()) {
+            BulkOperations transactions = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class)
+                    .insert(settlement.getTransactions());
+            metrics.timeSettlementWrite(TradingMetrics.TRANSACTIONS, transactions::execute);
+        }
+    }
+}
@@ -1,40 +1,32 @@
 package com.example.crypto_backend.service;
 
+import com.example.crypto_backend.DTO.CursorPage;
+import com.example.crypto_backend.config.MongoConcurrencyLimiter;
 import com.example.crypto_backend.model.Transaction;
 import com.example.crypto_backend.repository.TransactionRepo;
-import com.mongodb.MongoWriteException;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
 @Service
 public class TransactionService {
     private final TransactionRepo transactionRepo;
+    private final MongoConcurrencyLimiter mongoLimiter;
 
-    public TransactionService(TransactionRepo transactionRepo){
+    public TransactionService(TransactionRepo transactionRepo, MongoConcurrencyLimiter mongoLimiter){
         this.transactionRepo = transactionRepo;
+        this.mongoLimiter = mongoLimiter;
     }
 
-    public Transaction createTransaction(Transaction transaction){
-        try {
-            return transactionRepo.save(transaction);
-        } catch (MongoWriteException e) {
-            throw new RuntimeException("Error writing to the database", e);
+    public CursorPage<Transaction> getAllTransactionsByUserName(String userName, String cursor, int size){
+        // Both sides of the user's trades in one query, paged by (matchingTimeStamp, transactionId)
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<Transaction> transactions = mongoLimiter.call(() -> transactionRepo.findHistory(userName,
+                after == null ? null : after.time(), after == null ? null : after.id(), size));
+        if (transactions.size() < size) {
+            return new CursorPage<>(transactions, null);
         }
-    }
-
-    public List<Transaction> getAllTransactionsByUserName(String userName){
-        List<Transaction> buyerTransactions = transactionRepo.getAllTransactionsByBuyerUserName(userName).orElse(null);
-        if (buyerTransactions != null && !buyerTransactions.isEmpty()) {
-            return buyerTransactions;
-        }
-        List<Transaction> sellerTransactions = transactionRepo.getAllTransactionsBySellerUserName(userName).orElse(null);
-        if (sellerTransactions != null && !sellerTransactions.isEmpty()) {
-            return sellerTransactions;
-        }
-        throw new RuntimeException("User hasn't made any transactions");
-    }
-
-    public List<Transaction> getAllTransactions(){
-        return transactionRepo.findAll();
+        Transaction last = transactions.get(transactions.size() - 1);
+        return new CursorPage<>(transactions,
+                new KeysetCursor(last.getMatchingTimeStamp(), last.getTransactionId()).encode());
     }
 }
@@ -0,0 +1,88 @@
+package com.example.crypto_backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Pages through users by _id and writes only the requested fields straight from the cursor.
+// Raw documents are read so nothing is mapped that is not sent, and the password is never selectable.
+@Service
+public class UserListingService {
+    // API field name -> document field
+    private static final Map<String, String> FIELDS = Map.of(
+            "id", "_id",
+            "userName", "userName",
+            "name", "name",
+            "role", "role",
+            "coinList", "coinList",
+            "assets", "assets");
+    public static final List<String> DEFAULT_FIELDS = List.of("id", "userName", "name", "role");
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    public UserListingService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public Set<String> resolveFields(List<String> requested) {
+        Set<String> fields = new LinkedHashSet<>(requested == null || requested.isEmpty() ? DEFAULT_FIELDS : requested);
+        for (String field : fields) {
+            if (!FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown user field: " + field);
+            }
+        }
+        return fields;
+    }
+
+    public void writeUsers(Set<String> fields, String cursor, int size, OutputStream out) throws IOException {
+        Query query = new Query();
+        if (cursor != null && !cursor.isBlank()) {
+            if (!ObjectId.isValid(cursor)) throw new IllegalArgumentException("Invalid cursor");
+            query.addCriteria(Criteria.where("_id").gt(new ObjectId(cursor)));
+        }
+        // _id is always needed for the next cursor
+        query.fields().include("_id");
+        fields.forEach(field -> query.fields().include(FIELDS.get(field)));
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(size).cursorBatchSize(size);
+
+        int count = 0;
+        String lastId = null;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+             Stream<Document> users = mongoTemplate.stream(query, Document.class, "user")) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("items");
+            for (Document user : (Iterable<Document>) users::iterator) {
+                lastId = user.getObjectId("_id").toHexString();
+                json.writeStartObject();
+                for (String field : fields) {
+                    if (field.equals("id")) {
+                        json.writeStringField("id", lastId);
+                    } else {
+                        json.writeObjectField(field, user.get(FIELDS.get(field)));
+                    }
+                }
+                json.writeEndObject();
+                count++;
+            }
+            json.writeEndArray();
+            json.writeStringField("nextCursor", count < size ? null : lastId);
+            json.writeEndObject();
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.example.crypto_backend.service;
 
+import com.example.crypto_backend.config.MongoConcurrencyLimiter;
 import com.example.crypto_backend.model.User;
 import com.example.crypto_backend.repository.UserRepo;
-import com.mongodb.DuplicateKeyException;
-import com.mongodb.MongoWriteException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,20 +14,24 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @Service
 public class UserService implements UserDetailsService {
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
 
     private final UserRepo userRepo;
     private final PasswordEncoder passwordEncoder;
+    private final MongoConcurrencyLimiter mongoLimiter;
 
-    public UserService(UserRepo userRepo) {
+    public UserService(UserRepo userRepo, MongoConcurrencyLimiter mongoLimiter) {
         this.userRepo = userRepo;
+        this.mongoLimiter = mongoLimiter;
         this.passwordEncoder = new BCryptPasswordEncoder();
     }
 
     private boolean isBCryptEncoded(String password) {
-        return password != null && password.matches("^\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+        return password != null && BCRYPT_HASH.matcher(password).matches();
     }
 
     public User createUser(User user) {
@@ -34,25 +39,23 @@ public class UserService implements UserDetailsService {
             if (!isBCryptEncoded(user.getPassWord())) {
                 user.setPassWord(passwordEncoder.encode(user.getPassWord()));
             }
-            return userRepo.save(user);
+            // Insert, never save: rewriting an existing document would overwrite balances that settlements
+            // move with $inc and that the BalanceLedger has cached together with its holds
+            return mongoLimiter.call(() -> userRepo.insert(user));
         } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("User with the same username already exists", e);
-        } catch (MongoWriteException e) {
+        } catch (DataAccessException e) {
             throw new RuntimeException("Error writing to the database", e);
         }
     }
 
-    public List<User> getAllUsers() {
-        return userRepo.findAll();
-    }
-
     public User getUserByUserName(String userName) {
-        return userRepo.getUserByUserName(userName)
+        return mongoLimiter.call(() -> userRepo.getUserByUserName(userName))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userName));
     }
 
     public User getUserByUserNameSimply(String userName) {
-        return userRepo.getUserByUserName(userName).orElse(null);
+        return mongoLimiter.call(() -> userRepo.getUserByUserName(userName)).orElse(null);
     }
 
     @Override
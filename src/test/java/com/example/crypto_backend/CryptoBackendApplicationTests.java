@@ -3,7 +3,14 @@ package com.example.crypto_backend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Runs without a database: the startup work against Mongo is off and nothing here writes.
+// The JWT settings normally come from the environment.
+@SpringBootTest(properties = {
+		"trading.startup.mongo-enabled=false",
+		"jwt.secret=test-secret",
+		"jwt.issuer=crypto-backend",
+		"jwt.expiration=3600000"
+})
 class CryptoBackendApplicationTests {
 
 	@Test
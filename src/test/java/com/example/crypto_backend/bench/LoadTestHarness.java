@@ -0,0 +1,379 @@
+package com.example.crypto_backend.bench;
+
+import com.example.crypto_backend.CryptoBackendApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end load test: a seeded order flow of many users over several coins, buy/sell mix and a price
+// random walk per coin, driven against POST /orders, GET /orders and the auth endpoints. Latencies go into
+// one HDR histogram per endpoint and p50/p99/p99.9 are printed at the end.
+//
+// The workload is generated up front from --seed, so the same seed and parameters send the same requests
+// in the same per-worker order and runs can be compared between commits. By default the app is started in
+// this JVM on an embedded mongod; --mongo=<uri> uses a local mongod instead (its database is dropped first),
+// and --target=<url> drives an already running instance:
+//
+//   gradle loadTest -Pseed=42 -Pusers=200 -Pcoins=5 -Poperations=50000 -Pconcurrency=32 -Preport=build/loadtest
+//
+// In-process runs share the CPU with the app, compare them only with other in-process runs. A --target
+// instance has to list the generated coins, coin0 to coin<coins-1>, in trading.scale.coins.
+public class LoadTestHarness {
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	enum Kind { PLACE, LIST_ALL, LIST_OWN, LOGIN }
+
+	record Operation(Kind kind, int user, String coinId, boolean buy, long price, long quantity) {
+	}
+
+	record Workload(List<String> coins, int users, List<Operation> operations) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (arg.startsWith("--") && eq > 0) options.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+		long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+		int users = Integer.parseInt(options.getOrDefault("users", "200"));
+		int coins = Integer.parseInt(options.getOrDefault("coins", "5"));
+		int operations = Integer.parseInt(options.getOrDefault("operations", "50000"));
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+		double buyRatio = Double.parseDouble(options.getOrDefault("buyRatio", "0.5"));
+		double readRatio = Double.parseDouble(options.getOrDefault("readRatio", "0.2"));
+		double loginRatio = Double.parseDouble(options.getOrDefault("loginRatio", "0.02"));
+		// Standard deviation of one random-walk step, in basis points of the current price
+		double volatilityBps = Double.parseDouble(options.getOrDefault("volatilityBps", "5"));
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", String.valueOf(operations / 10)));
+
+		Workload workload = generate(seed, users, coins, operations + warmup, buyRatio, readRatio, loginRatio,
+				volatilityBps);
+
+		try (Environment environment = Environment.start(options, workload.coins())) {
+			HttpClient client = HttpClient.newBuilder()
+					.connectTimeout(Duration.ofSeconds(5))
+					.executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 8)))
+					.build();
+			Driver driver = new Driver(client, environment.baseUrl());
+
+			Map<String, Histogram> setup = new TreeMap<>();
+			String[] tokens = driver.registerAll(workload, setup);
+
+			List<Operation> warmupOps = workload.operations().subList(0, warmup);
+			List<Operation> measuredOps = workload.operations().subList(warmup, workload.operations().size());
+			driver.run(warmupOps, tokens, concurrency);
+			long start = System.nanoTime();
+			Map<String, Stats> results = driver.run(measuredOps, tokens, concurrency);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			setup.forEach((endpoint, histogram) -> results.put(endpoint, new Stats(histogram, 0)));
+
+			String header = String.format("seed=%d users=%d coins=%d operations=%d concurrency=%d buyRatio=%s "
+							+ "readRatio=%s loginRatio=%s volatilityBps=%s target=%s",
+					seed, users, coins, operations, concurrency, buyRatio, readRatio, loginRatio, volatilityBps,
+					environment.description());
+			double throughput = measuredOps.size() / seconds;
+			print(System.out, header, results, throughput);
+			if (options.containsKey("report")) report(Path.of(options.get("report")), header, results, throughput);
+		}
+		System.exit(0);
+	}
+
+	// Deterministic for a given seed: users and coins are numbered, prices walk from a per-coin start price
+	static Workload generate(long seed, int users, int coins, int operations, double buyRatio, double readRatio,
+							 double loginRatio, double volatilityBps) {
+		Random random = new Random(seed);
+		List<String> coinIds = new ArrayList<>();
+		double[] mid = new double[coins];
+		for (int c = 0; c < coins; c++) {
+			coinIds.add("coin" + c);
+			// Between $10 and $10000, in cents
+			mid[c] = Math.pow(10, 1 + random.nextDouble() * 3) * 100;
+		}
+
+		List<Operation> ops = new ArrayList<>(operations);
+		for (int i = 0; i < operations; i++) {
+			int user = random.nextInt(users);
+			double roll = random.nextDouble();
+			if (roll < loginRatio) {
+				ops.add(new Operation(Kind.LOGIN, user, null, false, 0, 0));
+			} else if (roll < loginRatio + readRatio) {
+				ops.add(new Operation(random.nextBoolean() ? Kind.LIST_ALL : Kind.LIST_OWN, user, null, false, 0, 0));
+			} else {
+				int c = random.nextInt(coins);
+				mid[c] = Math.max(1, mid[c] * (1 + random.nextGaussian() * volatilityBps / 10_000));
+				boolean buy = random.nextDouble() < buyRatio;
+				// Quotes within 20 bps either side of the mid, so roughly half of them cross
+				double offset = (random.nextDouble() - 0.5) * 0.004 * mid[c];
+				long price = Math.max(1, Math.round(mid[c] + offset));
+				// 0.001 to 0.1 coins at 8 decimals
+				long quantity = 100_000L * (1 + random.nextInt(100));
+				ops.add(new Operation(Kind.PLACE, user, coinIds.get(c), buy, price, quantity));
+			}
+		}
+		return new Workload(coinIds, users, ops);
+	}
+
+	static String userName(int user) {
+		return "load-user-" + user;
+	}
+
+	static String password(int user) {
+		return "load-pass-" + user;
+	}
+
+	record Stats(Histogram histogram, long errors) {
+	}
+
+	static final class Driver {
+		private final HttpClient client;
+		private final String baseUrl;
+
+		Driver(HttpClient client, String baseUrl) {
+			this.client = client;
+			this.baseUrl = baseUrl;
+		}
+
+		// Registers every user with enough USD and coins to keep trading; users left over from an earlier run
+		// against the same database log in instead
+		String[] registerAll(Workload workload, Map<String, Histogram> histograms) throws Exception {
+			String[] tokens = new String[workload.users()];
+			for (int user = 0; user < workload.users(); user++) {
+				Map<String, Object> assets = new LinkedHashMap<>();
+				assets.put("usd", Map.of("assetId", "usd", "balance", 1_000_000_000_00L));
+				for (String coin : workload.coins()) {
+					assets.put(coin, Map.of("assetId", coin, "balance", 1_000_000L * 100_000_000L));
+				}
+				Map<String, Object> body = new LinkedHashMap<>();
+				body.put("userName", userName(user));
+				body.put("passWord", password(user));
+				body.put("name", userName(user));
+				body.put("coinList", workload.coins());
+				body.put("assets", assets);
+
+				HttpResponse<String> response = timed(histograms, "POST /auth/register",
+						post("/auth/register", null, body));
+				if (response.statusCode() == 409) {
+					response = timed(histograms, "POST /auth/login", login(user));
+				}
+				if (response.statusCode() != 200) {
+					throw new IllegalStateException("Could not sign up " + userName(user) + ": "
+							+ response.statusCode() + " " + response.body());
+				}
+				tokens[user] = JSON.readTree(response.body()).get("token").asText();
+			}
+			return tokens;
+		}
+
+		// Operation i goes to worker i % concurrency, so each worker replays the same sequence every run
+		Map<String, Stats> run(List<Operation> operations, String[] tokens, int concurrency) throws Exception {
+			ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+			List<Future<Map<String, Stats>>> futures = new ArrayList<>();
+			for (int w = 0; w < concurrency; w++) {
+				int worker = w;
+				futures.add(workers.submit(() -> {
+					Map<String, Histogram> histograms = new TreeMap<>();
+					Map<String, Long> errors = new TreeMap<>();
+					for (int i = worker; i < operations.size(); i += concurrency) {
+						Operation op = operations.get(i);
+						String endpoint = endpoint(op.kind());
+						try {
+							HttpResponse<String> response = timed(histograms, endpoint, request(op, tokens));
+							if (response.statusCode() >= 400) errors.merge(endpoint, 1L, Long::sum);
+						} catch (IOException e) {
+							errors.merge(endpoint, 1L, Long::sum);
+						}
+					}
+					Map<String, Stats> stats = new TreeMap<>();
+					histograms.forEach((endpoint, histogram) ->
+							stats.put(endpoint, new Stats(histogram, errors.getOrDefault(endpoint, 0L))));
+					return stats;
+				}));
+			}
+
+			Map<String, Stats> merged = new TreeMap<>();
+			for (Future<Map<String, Stats>> future : futures) {
+				future.get().forEach((endpoint, stats) -> merged.merge(endpoint, stats, (a, b) -> {
+					a.histogram().add(b.histogram());
+					return new Stats(a.histogram(), a.errors() + b.errors());
+				}));
+			}
+			workers.shutdown();
+			return merged;
+		}
+
+		private static String endpoint(Kind kind) {
+			return switch (kind) {
+				case PLACE -> "POST /orders";
+				case LIST_ALL -> "GET /orders";
+				case LIST_OWN -> "GET /orders/{userName}";
+				case LOGIN -> "POST /auth/login";
+			};
+		}
+
+		private HttpRequest request(Operation op, String[] tokens) throws IOException {
+			String token = tokens[op.user()];
+			return switch (op.kind()) {
+				case PLACE -> {
+					Map<String, Object> order = new LinkedHashMap<>();
+					order.put("coinId", op.coinId());
+					order.put("userName", userName(op.user()));
+					order.put("type", op.buy() ? "BUY" : "SELL");
+					order.put("price", op.price());
+					order.put("quantity", op.quantity());
+					order.put("status", "PENDING");
+					yield post("/orders", token, order);
+				}
+				case LIST_ALL -> get("/orders?size=20", token);
+				case LIST_OWN -> get("/orders/" + userName(op.user()) + "?size=20", token);
+				case LOGIN -> login(op.user());
+			};
+		}
+
+		private HttpRequest login(int user) throws IOException {
+			return post("/auth/login", null, Map.of("userName", userName(user), "passWord", password(user)));
+		}
+
+		private HttpRequest post(String path, String token, Object body) throws IOException {
+			HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+					.timeout(Duration.ofSeconds(30))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+			if (token != null) builder.header("Authorization", "Bearer " + token);
+			return builder.build();
+		}
+
+		private HttpRequest get(String path, String token) {
+			return HttpRequest.newBuilder(URI.create(baseUrl + path))
+					.timeout(Duration.ofSeconds(30))
+					.header("Authorization", "Bearer " + token)
+					.GET()
+					.build();
+		}
+
+		private HttpResponse<String> timed(Map<String, Histogram> histograms, String endpoint, HttpRequest request)
+				throws IOException {
+			long t0 = System.nanoTime();
+			try {
+				return client.send(request, HttpResponse.BodyHandlers.ofString());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			} finally {
+				long micros = Math.min((System.nanoTime() - t0) / 1000, HIGHEST_TRACKABLE_MICROS);
+				histograms.computeIfAbsent(endpoint, k -> new Histogram(HIGHEST_TRACKABLE_MICROS, 3))
+						.recordValue(micros);
+			}
+		}
+	}
+
+	static void print(PrintStream out, String header, Map<String, Stats> results, double throughput) {
+		out.println(header);
+		out.printf("%-26s %9s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "p50 us", "p99 us",
+				"p99.9 us", "max us");
+		results.forEach((endpoint, stats) -> {
+			Histogram h = stats.histogram();
+			out.printf("%-26s %9d %8d %10d %10d %10d %10d%n", endpoint, h.getTotalCount(), stats.errors(),
+					h.getValueAtPercentile(50), h.getValueAtPercentile(99), h.getValueAtPercentile(99.9),
+					h.getMaxValue());
+		});
+		out.printf("measured throughput: %.1f ops/s%n", throughput);
+	}
+
+	// summary.txt plus one percentile distribution (.hgrm) per endpoint, for plotting or diffing runs
+	static void report(Path directory, String header, Map<String, Stats> results, double throughput)
+			throws IOException {
+		Files.createDirectories(directory);
+		try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("summary.txt")))) {
+			print(out, header, results, throughput);
+		}
+		for (Map.Entry<String, Stats> entry : results.entrySet()) {
+			String file = entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+			try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(file)))) {
+				entry.getValue().histogram().outputPercentileDistribution(out, 1.0);
+			}
+		}
+	}
+
+	// Where the requests go: an external instance, or the app started here on a local or embedded mongod
+	record Environment(String baseUrl, String description, List<AutoCloseable> resources) implements AutoCloseable {
+		private static final String DEFAULT_DATABASE = "crypto_loadtest";
+
+		static Environment start(Map<String, String> options, List<String> coins) {
+			if (options.containsKey("target")) {
+				return new Environment(options.get("target"), options.get("target"), List.of());
+			}
+			List<AutoCloseable> resources = new ArrayList<>();
+			String mongo = options.getOrDefault("mongo", "embedded");
+			Map<String, Object> properties = new LinkedHashMap<>();
+			String uri;
+			if (mongo.equals("embedded")) {
+				TransitionWalker.ReachedState<RunningMongodProcess> mongod = Mongod.instance().start(Version.Main.V7_0);
+				resources.add(mongod::close);
+				ServerAddress address = mongod.current().getServerAddress();
+				uri = "mongodb://" + address.getHost() + ":" + address.getPort() + "/" + DEFAULT_DATABASE;
+				// A standalone mongod has no multi-document transactions
+				properties.put("trading.settlement.transactional", "false");
+			} else {
+				uri = mongo;
+				String database = new ConnectionString(uri).getDatabase();
+				if (database == null) throw new IllegalArgumentException("--mongo needs a database, e.g. "
+						+ "mongodb://localhost:27017/" + DEFAULT_DATABASE);
+				// Seeded runs are only comparable from the same starting state
+				try (MongoClient client = MongoClients.create(uri)) {
+					client.getDatabase(database).drop();
+				}
+			}
+			properties.put("spring.data.mongodb.uri", uri);
+			properties.put("server.port", "0");
+			properties.put("jwt.secret", "load-test-secret");
+			properties.put("jwt.issuer", "load-test");
+			properties.put("jwt.expiration", "86400000");
+			properties.put("trading.scale.coins", String.join(",", coins));
+
+			// Default properties, so -D system properties and environment variables can still override them
+			ConfigurableApplicationContext context = new SpringApplicationBuilder(CryptoBackendApplication.class)
+					.properties(properties)
+					.run();
+			resources.add(0, context::close);
+			String port = context.getEnvironment().getProperty("local.server.port");
+			return new Environment("http://localhost:" + port, "in-process on " + (mongo.equals("embedded") ?
+					"embedded mongod" : uri), resources);
+		}
+
+		@Override
+		public void close() throws Exception {
+			for (AutoCloseable resource : resources) resource.close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.crypto_backend.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Closed-loop HTTP load against one or more running instances, printing throughput and latency percentiles
+// per target. Start the app once with the default platform-thread Tomcat and once on a Java 21 runtime with
+// spring.threads.virtual.enabled=true, then compare both under the same Mongo:
+//
+//   gradle threadingBenchmark -Ptargets=platform=http://localhost:8080,virtual=http://localhost:8081 \
+//       -Ppath=/transactions/alice -Ptoken=<jwt> -Pconcurrency=400 -Pseconds=30
+//
+// Only for comparing modes on one machine, not a substitute for a proper load test.
+public class ThreadingModeBenchmark {
+
+	private record Result(String name, long requests, long errors, double seconds, long[] latenciesMicros) {
+		double throughput() {
+			return requests / seconds;
+		}
+
+		long percentile(double p) {
+			if (latenciesMicros.length == 0) return 0;
+			int index = (int) Math.ceil(p / 100.0 * latenciesMicros.length) - 1;
+			return latenciesMicros[Math.max(0, Math.min(index, latenciesMicros.length - 1))];
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (arg.startsWith("--") && eq > 0) options.put(arg.substring(2, eq), arg.substring(eq + 1));
+		}
+		String path = options.getOrDefault("path", "/orders/book/btc");
+		String token = options.get("token");
+		int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+		int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+		int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+
+		Map<String, String> targets = new LinkedHashMap<>();
+		for (String target : options.getOrDefault("targets", "default=http://localhost:8080").split(",")) {
+			int eq = target.indexOf('=');
+			targets.put(target.substring(0, eq), target.substring(eq + 1));
+		}
+
+		List<Result> results = new ArrayList<>();
+		for (Map.Entry<String, String> target : targets.entrySet()) {
+			URI uri = URI.create(target.getValue() + path);
+			run(target.getKey(), uri, token, concurrency, warmupSeconds);
+			results.add(run(target.getKey(), uri, token, concurrency, seconds));
+		}
+
+		System.out.printf("%-12s %12s %8s %10s %10s %10s %10s%n",
+				"target", "req/s", "errors", "p50 us", "p90 us", "p99 us", "max us");
+		for (Result r : results) {
+			System.out.printf("%-12s %12.1f %8d %10d %10d %10d %10d%n", r.name(), r.throughput(), r.errors(),
+					r.percentile(50), r.percentile(90), r.percentile(99), r.percentile(100));
+		}
+	}
+
+	private static Result run(String name, URI uri, String token, int concurrency, int seconds) throws Exception {
+		HttpClient client = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(5))
+				.executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 16)))
+				.build();
+		HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+		if (token != null) builder.header("Authorization", "Bearer " + token);
+		HttpRequest request = builder.build();
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+		AtomicLong errors = new AtomicLong();
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		List<Future<long[]>> futures = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < concurrency; i++) {
+			futures.add(workers.submit(() -> {
+				long[] latencies = new long[1024];
+				int count = 0;
+				while (System.nanoTime() < deadline) {
+					long t0 = System.nanoTime();
+					try {
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						if (response.statusCode() >= 400) errors.incrementAndGet();
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					}
+					if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+					latencies[count++] = (System.nanoTime() - t0) / 1000;
+				}
+				return Arrays.copyOf(latencies, count);
+			}));
+		}
+
+		List<long[]> perWorker = new ArrayList<>();
+		for (Future<long[]> future : futures) perWorker.add(future.get());
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		workers.shutdown();
+
+		long[] all = perWorker.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+		return new Result(name, all.length, errors.get(), elapsed, all);
+	}
+}
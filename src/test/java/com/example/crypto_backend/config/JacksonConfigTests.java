@@ -0,0 +1,35 @@
+package com.example.crypto_backend.config;
+
+import com.example.crypto_backend.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JacksonConfigTests {
+
+	private final ObjectMapper mapper = mapper();
+
+	private static ObjectMapper mapper() {
+		Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+		new JacksonConfig().rejectFractionalAmounts().customize(builder);
+		return builder.build();
+	}
+
+	@Test
+	void integerAmountsAreReadAsFixedPoint() throws Exception {
+		Order order = mapper.readValue("{\"price\": 1250, \"quantity\": 50000000}", Order.class);
+
+		assertEquals(1250, order.getPrice());
+		assertEquals(50000000, order.getQuantity());
+	}
+
+	@Test
+	void fractionalAmountsAreRejectedInsteadOfTruncated() {
+		assertThrows(InvalidFormatException.class, () -> mapper.readValue("{\"price\": 12.5}", Order.class));
+		assertThrows(InvalidFormatException.class, () -> mapper.readValue("{\"quantity\": 0.5}", Order.class));
+	}
+}
@@ -0,0 +1,106 @@
+package com.example.crypto_backend.controller;
+
+import com.example.crypto_backend.jwt.JwtPrincipal;
+import com.example.crypto_backend.jwt.JwtUtil;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.security.PasswordHashingExecutor;
+import com.example.crypto_backend.security.PasswordHashingProperties;
+import com.example.crypto_backend.security.SecurityConfig;
+import com.example.crypto_backend.service.PortfolioService;
+import com.example.crypto_backend.service.UserListingService;
+import com.example.crypto_backend.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Async results are dispatched a second time without the JWT filter, they must still get through security
+@WebMvcTest(UserController.class)
+@Import({SecurityConfig.class, PasswordHashingExecutor.class, PasswordHashingProperties.class})
+class UserControllerTests {
+	private static final String TOKEN = "Bearer token";
+
+	@Autowired
+	private MockMvc mockMvc;
+	@MockBean
+	private JwtUtil jwtUtil;
+	@MockBean
+	private UserService userService;
+	@MockBean
+	private UserListingService userListingService;
+	@MockBean
+	private PortfolioService portfolioService;
+
+	@BeforeEach
+	void setUp() {
+		when(jwtUtil.authenticate("token")).thenReturn(
+				new JwtPrincipal("alice", List.of(new SimpleGrantedAuthority("ROLE_USER")), Long.MAX_VALUE));
+	}
+
+	@Test
+	void createdUserIsAnsweredOnTheAsyncDispatch() throws Exception {
+		User saved = new User();
+		saved.setId("u1");
+		when(userService.createUser(any(User.class))).thenReturn(saved);
+
+		MvcResult result = mockMvc.perform(post("/users")
+						.header("Authorization", TOKEN)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userName\":\"bob\",\"passWord\":\"secret\"}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isCreated())
+				.andExpect(header().string("Location", "http://localhost/users/u1"));
+	}
+
+	@Test
+	void streamedUserListIsWrittenOnTheAsyncDispatch() throws Exception {
+		when(userListingService.resolveFields(isNull())).thenReturn(Set.of("userName"));
+		doAnswer(invocation -> {
+			invocation.getArgument(3, OutputStream.class).write("[]".getBytes());
+			return null;
+		}).when(userListingService).writeUsers(any(), isNull(), anyInt(), any());
+
+		MvcResult result = mockMvc.perform(get("/users").header("Authorization", TOKEN))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().string("[]"));
+	}
+
+	@Test
+	void missingTokenIsStillRefused() throws Exception {
+		mockMvc.perform(post("/users")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userName\":\"bob\"}"))
+				.andExpect(status().isForbidden());
+	}
+}
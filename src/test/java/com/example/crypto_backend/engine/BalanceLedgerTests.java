@@ -0,0 +1,156 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Asset;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.OrderRepo;
+import com.example.crypto_backend.repository.UserRepo;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BalanceLedgerTests {
+	private static final long COIN = 1_00000000L;
+
+	private final UserRepo userRepo = mock(UserRepo.class);
+	private final OrderRepo orderRepo = mock(OrderRepo.class);
+	private final BalanceLedger ledger = new BalanceLedger(userRepo, orderRepo, new ScaleProperties());
+
+	private void user(String userName, long usd, long btc) {
+		Map<String, Asset> assets = new HashMap<>();
+		assets.put("usd", asset("usd", usd));
+		assets.put("btc", asset("btc", btc));
+		when(userRepo.getUserByUserName(userName))
+				.thenReturn(Optional.of(new User(null, userName, "password", userName, "USER", null, assets)));
+	}
+
+	private static Asset asset(String assetId, long balance) {
+		Asset asset = new Asset();
+		asset.setAssetId(assetId);
+		asset.setBalance(balance);
+		return asset;
+	}
+
+	@Test
+	void reserveStopsAtTheAvailableBalanceAndReleaseFreesIt() {
+		user("alice", 1000_00, 0);
+
+		assertTrue(ledger.reserve("alice", "usd", 600_00));
+		assertFalse(ledger.reserve("alice", "usd", 400_01));
+		assertFalse(ledger.reserve("alice", "btc", 1));
+
+		ledger.release("alice", "usd", 600_00);
+		assertTrue(ledger.reserve("alice", "usd", 1000_00));
+	}
+
+	@Test
+	void restingOrdersAreHeldWhenAUserIsLoaded() {
+		user("alice", 1000_00, 2 * COIN);
+		when(orderRepo.findAllByUserNameAndStatus("alice", OrderStatus.PENDING)).thenReturn(List.of(
+				new Order("b1", "btc", "alice", OrderType.BUY, 300_00, COIN, OrderStatus.PENDING, LocalDateTime.now()),
+				new Order("s1", "btc", "alice", OrderType.SELL, 900_00, COIN / 2, OrderStatus.PENDING, LocalDateTime.now())));
+
+		assertEquals(700_00, ledger.getAvailable("alice", "usd"));
+		assertEquals(COIN * 3 / 2, ledger.getAvailable("alice", "btc"));
+	}
+
+	@Test
+	void applyMovesBalancesAndReleasesTheFilledHold() {
+		user("alice", 1000_00, 0);
+		user("bob", 0, COIN);
+		assertTrue(ledger.reserve("alice", "usd", 500_00));
+		assertTrue(ledger.reserve("bob", "btc", COIN));
+
+		ledger.apply(fill());
+
+		assertEquals(500_00, ledger.getAvailable("alice", "usd"));
+		assertEquals(COIN, ledger.getAvailable("alice", "btc"));
+		assertEquals(500_00, ledger.getAvailable("bob", "usd"));
+		assertEquals(0, ledger.getAvailable("bob", "btc"));
+	}
+
+	@Test
+	void revertRestoresHoldsAndBalancesOfAnUnwrittenSettlement() {
+		user("alice", 1000_00, 0);
+		user("bob", 0, COIN);
+		assertTrue(ledger.reserve("alice", "usd", 500_00));
+		assertTrue(ledger.reserve("bob", "btc", COIN));
+		Settlement settlement = fill();
+
+		// Applied ahead of the write, then the write failed
+		ledger.apply(settlement);
+		ledger.revert(settlement);
+
+		assertEquals(500_00, ledger.getAvailable("alice", "usd"));
+		assertEquals(0, ledger.getAvailable("alice", "btc"));
+		assertEquals(0, ledger.getAvailable("bob", "usd"));
+		assertEquals(0, ledger.getAvailable("bob", "btc"));
+		ledger.release("alice", "usd", 500_00);
+		ledger.release("bob", "btc", COIN);
+		assertEquals(1000_00, ledger.getAvailable("alice", "usd"));
+		assertEquals(COIN, ledger.getAvailable("bob", "btc"));
+	}
+
+	@Test
+	void replaceHoldOnlyNeedsTheIncreaseToBeAvailable() {
+		user("alice", 1000_00, 0);
+		assertTrue(ledger.reserve("alice", "usd", 600_00));
+
+		assertFalse(ledger.replaceHold("alice", "usd", 600_00, 1000_01));
+		assertEquals(400_00, ledger.getAvailable("alice", "usd"));
+		assertTrue(ledger.replaceHold("alice", "usd", 600_00, 1000_00));
+		assertEquals(0, ledger.getAvailable("alice", "usd"));
+	}
+
+	@Test
+	void slowUserReadDoesNotBlockOtherUsersOfItsStripe() throws Exception {
+		// "Aa" and "BB" share a hash code and so a stripe lock
+		user("Aa", 1000_00, 0);
+		CountDownLatch readStarted = new CountDownLatch(1);
+		CountDownLatch releaseRead = new CountDownLatch(1);
+		when(userRepo.getUserByUserName("BB")).thenAnswer(invocation -> {
+			readStarted.countDown();
+			releaseRead.await();
+			return Optional.empty();
+		});
+		CompletableFuture<Long> slow = CompletableFuture.supplyAsync(() -> ledger.getAvailable("BB", "usd"));
+		assertTrue(readStarted.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<Boolean> other = CompletableFuture.supplyAsync(() -> ledger.reserve("Aa", "usd", 100_00));
+		try {
+			assertTrue(other.get(5, TimeUnit.SECONDS));
+		} finally {
+			releaseRead.countDown();
+		}
+		assertThrows(ExecutionException.class, slow::get);
+	}
+
+	// Alice buys one coin from Bob at $500
+	private static Settlement fill() {
+		Settlement settlement = new Settlement();
+		settlement.releaseHold("alice", "usd", 500_00);
+		settlement.addBalanceDelta("alice", "usd", -500_00);
+		settlement.addBalanceDelta("alice", "btc", COIN);
+		settlement.releaseHold("bob", "btc", COIN);
+		settlement.addBalanceDelta("bob", "usd", 500_00);
+		settlement.addBalanceDelta("bob", "btc", -COIN);
+		return settlement;
+	}
+}
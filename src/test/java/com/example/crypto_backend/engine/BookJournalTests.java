@@ -0,0 +1,237 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookJournalTests {
+
+	@TempDir
+	Path directory;
+
+	private static Order order(String id, OrderType type, long price, OrderStatus status) {
+		return order(id, "btc", type, price, status);
+	}
+
+	private static Order order(String id, String coinId, OrderType type, long price, OrderStatus status) {
+		return new Order(id, coinId, "alice", type, price, 1_00000000L, status, LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123456789));
+	}
+
+	private JournalProperties properties() {
+		JournalProperties properties = new JournalProperties();
+		properties.setEnabled(true);
+		properties.setDirectory(directory.toString());
+		return properties;
+	}
+
+	@Test
+	void replayReturnsRecordsInOrderAcrossSegments() {
+		BookJournal journal = new BookJournal(directory, 0, 256, false, new AtomicLong());
+		for (int i = 1; i <= 10; i++) {
+			journal.append(List.of(order("o" + i, OrderType.SELL, 10000 + i, OrderStatus.PENDING)));
+		}
+		journal.close();
+
+		List<Order> replayed = new ArrayList<>();
+		long last = BookJournal.replay(directory, entry -> replayed.addAll(entry.orders()));
+
+		assertEquals(10, last);
+		assertEquals(10, replayed.size());
+		assertEquals(order("o7", OrderType.SELL, 10007, OrderStatus.PENDING), replayed.get(6));
+	}
+
+	@Test
+	void replayStopsAtACorruptedRecord() throws Exception {
+		BookJournal journal = new BookJournal(directory, 0, 4096, false, new AtomicLong());
+		journal.append(List.of(order("o1", OrderType.BUY, 10000, OrderStatus.PENDING)));
+		journal.append(List.of(order("o2", OrderType.BUY, 10000, OrderStatus.PENDING)));
+		journal.close();
+
+		Path segment;
+		try (var files = Files.list(directory)) {
+			segment = files.findFirst().orElseThrow();
+		}
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			// Flip a byte inside the second record's payload, records are [length][crc][payload]
+			long secondRecord = 8 + readInt(file, 0);
+			file.seek(secondRecord + 20);
+			int b = file.read();
+			file.seek(secondRecord + 20);
+			file.write(b ^ 0xff);
+		}
+
+		List<Order> replayed = new ArrayList<>();
+		assertEquals(1, BookJournal.replay(directory, entry -> replayed.addAll(entry.orders())));
+		assertEquals(1, replayed.size());
+	}
+
+	@Test
+	void snapshotKeepsBookOrder() {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("b1", OrderType.BUY, 9900, OrderStatus.PENDING));
+		book.add(order("b2", OrderType.BUY, 10000, OrderStatus.PENDING));
+		book.add(order("b3", OrderType.BUY, 10000, OrderStatus.PENDING));
+		book.add(order("s1", OrderType.SELL, 10100, OrderStatus.PENDING));
+
+		BookSnapshots.write(directory, "btc", BookSnapshots.encode(book, 42));
+		Map<String, BookSnapshots.Snapshot> snapshots = BookSnapshots.readAll(directory);
+
+		BookSnapshots.Snapshot snapshot = snapshots.get("btc");
+		assertEquals(42, snapshot.sequence());
+		assertEquals(List.of("b2", "b3", "b1", "s1"), snapshot.orders().stream().map(Order::getOrderId).toList());
+	}
+
+	@Test
+	void corruptSnapshotFailsRecoveryAndDropsTheFiles() throws Exception {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("b1", OrderType.BUY, 9900, OrderStatus.PENDING));
+		BookSnapshots.write(directory, "btc", BookSnapshots.encode(book, 1));
+		Path snapshot;
+		try (var files = Files.list(directory)) {
+			snapshot = files.findFirst().orElseThrow();
+		}
+		byte[] bytes = Files.readAllBytes(snapshot);
+		bytes[bytes.length / 2] ^= (byte) 0xff;
+		Files.write(snapshot, bytes);
+
+		BookPersistence persistence = new BookPersistence(properties(), null);
+
+		assertThrows(IllegalStateException.class, () -> persistence.recover(order -> { }));
+		try (var files = Files.list(directory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void recordsKeepMissingFieldsAndLongStrings() {
+		BookJournal journal = new BookJournal(directory, 0, 1 << 20, false, new AtomicLong());
+		Order order = new Order("o1", "btc", "u".repeat(40_000), null, 10000, 1, null, null);
+		journal.append(List.of(order));
+		journal.close();
+
+		List<Order> replayed = new ArrayList<>();
+		BookJournal.replay(directory, entry -> replayed.addAll(entry.orders()));
+
+		assertEquals(List.of(order), replayed);
+	}
+
+	@Test
+	void partitionsReplayTogetherAndATornRecordOnlyEndsItsOwnPartition() throws Exception {
+		AtomicLong sequences = new AtomicLong();
+		BookJournal first = new BookJournal(directory, 0, 4096, false, sequences);
+		BookJournal second = new BookJournal(directory, 1, 4096, false, sequences);
+		first.append(List.of(order("a1", OrderType.BUY, 10000, OrderStatus.PENDING)));
+		second.append(List.of(order("b1", "eth", OrderType.BUY, 10000, OrderStatus.PENDING)));
+		first.append(List.of(order("a2", OrderType.BUY, 10000, OrderStatus.PENDING)));
+		second.append(List.of(order("b2", "eth", OrderType.BUY, 10000, OrderStatus.PENDING)));
+		first.close();
+		second.close();
+
+		Path segment = directory.resolve(String.format("journal-0-%020d.log", 1));
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			long secondRecord = 8 + readInt(file, 0);
+			file.seek(secondRecord + 20);
+			int b = file.read();
+			file.seek(secondRecord + 20);
+			file.write(b ^ 0xff);
+		}
+
+		List<Long> sequencesSeen = new ArrayList<>();
+		List<String> replayed = new ArrayList<>();
+		long last = BookJournal.replay(directory, entry -> {
+			sequencesSeen.add(entry.sequence());
+			entry.orders().forEach(order -> replayed.add(order.getOrderId()));
+		});
+
+		assertEquals(4, last);
+		assertEquals(List.of(1L, 2L, 4L), sequencesSeen);
+		assertEquals(List.of("a1", "b1", "b2"), replayed);
+	}
+
+	@Test
+	void closedJournalRefusesAppendsWithoutStartingASegment() {
+		BookJournal journal = new BookJournal(directory, 0, 4096, false, new AtomicLong());
+		journal.close();
+
+		assertThrows(IllegalStateException.class,
+				() -> journal.append(List.of(order("o1", OrderType.BUY, 10000, OrderStatus.PENDING))));
+		assertFalse(Files.exists(directory.resolve(String.format("journal-0-%020d.log", 1))));
+	}
+
+	@Test
+	void journalingStaysOffAndWritesNothingOnceAFailedWriteDiscardedTheFiles() throws Exception {
+		EngineProperties engineProperties = new EngineProperties();
+		engineProperties.setPartitions(1);
+		OrderSequencer orderSequencer = new OrderSequencer(engineProperties);
+		try {
+			BookPersistence persistence = new BookPersistence(properties(), orderSequencer);
+			persistence.recover(order -> { });
+			persistence.start(List::of);
+			// Occupies the name of the first segment, so the first append fails like a broken disk
+			Files.createDirectory(directory.resolve(String.format("journal-0-%020d.log", 1)));
+
+			assertTrue(persistence.append(List.of(order("o1", OrderType.BUY, 10000, OrderStatus.PENDING))));
+			assertTrue(persistence.append(List.of(order("o2", OrderType.BUY, 10000, OrderStatus.PENDING))));
+			OrderBook book = new OrderBook("btc");
+			book.add(order("o3", OrderType.BUY, 10000, OrderStatus.PENDING));
+			persistence.snapshot(book);
+
+			try (var files = Files.list(directory)) {
+				assertEquals(0, files.count());
+			}
+			persistence.shutdown();
+		} finally {
+			orderSequencer.shutdown();
+		}
+	}
+
+	@Test
+	void recoveryRestoresTheBooksOfEveryPartition() {
+		EngineProperties engineProperties = new EngineProperties();
+		engineProperties.setPartitions(4);
+		OrderSequencer orderSequencer = new OrderSequencer(engineProperties);
+		try {
+			BookPersistence persistence = new BookPersistence(properties(), orderSequencer);
+			persistence.recover(order -> { });
+			persistence.start(List::of);
+			List<String> coins = List.of("btc", "eth", "sol", "ada", "dot", "xrp");
+			for (String coin : coins) {
+				assertTrue(persistence.append(List.of(order(coin + "-1", coin, OrderType.BUY, 10000, OrderStatus.PENDING))));
+			}
+			persistence.append(List.of(order("btc-1", "btc", OrderType.BUY, 10000, OrderStatus.COMPLETED)));
+
+			List<String> restored = new ArrayList<>();
+			BookPersistence restarted = new BookPersistence(properties(), orderSequencer);
+			assertNotNull(restarted.recover(o -> restored.add(o.getOrderId() + ":" + o.getStatus())));
+			assertEquals(coins.size() + 1, restored.size());
+			// Only the records of one coin are ordered among each other
+			assertTrue(restored.indexOf("btc-1:PENDING") < restored.indexOf("btc-1:COMPLETED"));
+			assertTrue(restored.containsAll(coins.stream().map(coin -> coin + "-1:PENDING").toList()));
+			persistence.shutdown();
+		} finally {
+			orderSequencer.shutdown();
+		}
+	}
+
+	private static int readInt(RandomAccessFile file, long position) throws Exception {
+		file.seek(position);
+		return file.readInt();
+	}
+}
@@ -0,0 +1,22 @@
+package com.example.crypto_backend.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixedPointTests {
+
+	@Test
+	void notionalScalesQuantityBackToPriceUnits() {
+		// 0.5 coin at 100.25 USD costs 50.12 USD (rounded down to the cent)
+		assertEquals(5012, FixedPoint.notional(10025, 50_000_000L, FixedPoint.pow10(8)));
+	}
+
+	@Test
+	void notionalSurvivesProductsBeyond64Bits() {
+		// 1,000,000 coins at 100,000,000 USD
+		long price = 100_000_000L * 100;
+		long quantity = 1_000_000L * FixedPoint.pow10(8);
+		assertEquals(100_000_000_000_000L * 100, FixedPoint.notional(price, quantity, FixedPoint.pow10(8)));
+	}
+}
@@ -0,0 +1,122 @@
+package com.example.crypto_backend.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchingEngineTests {
+	private static final int PRODUCERS = 8;
+	private static final int TASKS_PER_PRODUCER = 20_000;
+
+	// Small enough that producers wrap around it and wait for free slots
+	private final MatchingEngine engine = new MatchingEngine(0, 16);
+	private final ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+
+	MatchingEngineTests() {
+		engine.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		engine.stop();
+		producers.shutdownNow();
+	}
+
+	@Test
+	void everyTaskOfConcurrentProducersRunsOnceAndInPublishOrder() throws Exception {
+		// Only touched by the engine thread, a plain map is enough if tasks never run concurrently
+		Map<Integer, List<Integer>> ran = new HashMap<>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<List<CompletableFuture<Integer>>>> submitted = new ArrayList<>();
+		for (int p = 0; p < PRODUCERS; p++) {
+			int producer = p;
+			submitted.add(producers.submit(() -> {
+				start.await();
+				List<CompletableFuture<Integer>> futures = new ArrayList<>();
+				for (int i = 0; i < TASKS_PER_PRODUCER; i++) {
+					int task = i;
+					futures.add(engine.submit(() -> {
+						ran.computeIfAbsent(producer, k -> new ArrayList<>()).add(task);
+						return task;
+					}));
+				}
+				return futures;
+			}));
+		}
+		start.countDown();
+
+		for (Future<List<CompletableFuture<Integer>>> producer : submitted) {
+			List<CompletableFuture<Integer>> futures = producer.get(30, TimeUnit.SECONDS);
+			for (int i = 0; i < futures.size(); i++) {
+				assertEquals(i, futures.get(i).get(30, TimeUnit.SECONDS));
+			}
+		}
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < TASKS_PER_PRODUCER; i++) {
+			expected.add(i);
+		}
+		CompletableFuture<Map<Integer, List<Integer>>> seen = engine.submit(() -> ran);
+		for (List<Integer> tasks : seen.get(30, TimeUnit.SECONDS).values()) {
+			assertEquals(expected, tasks);
+		}
+		assertEquals(PRODUCERS, seen.get().size());
+	}
+
+	@Test
+	void parkedEngineWakesUpForTheNextTask() throws Exception {
+		assertEquals(1, engine.submit(() -> 1).get(5, TimeUnit.SECONDS));
+		// Long enough for the engine to stop spinning and park
+		Thread.sleep(50);
+
+		assertEquals(2, engine.submit(() -> 2).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void stoppingFailsQueuedTasksAndRefusesNewOnes() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Object> blocking = engine.submit(() -> {
+			running.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		List<CompletableFuture<Integer>> queued = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			int task = i;
+			queued.add(engine.submit(() -> task));
+		}
+
+		engine.stop();
+		release.countDown();
+
+		blocking.get(5, TimeUnit.SECONDS);
+		for (CompletableFuture<Integer> future : queued) {
+			CompletionException e = assertThrows(CompletionException.class, future::join);
+			assertInstanceOf(RejectedExecutionException.class, e.getCause());
+		}
+		CompletionException late = assertThrows(CompletionException.class, () -> engine.submit(() -> 1).join());
+		assertInstanceOf(RejectedExecutionException.class, late.getCause());
+	}
+}
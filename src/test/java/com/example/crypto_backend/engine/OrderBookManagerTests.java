@@ -0,0 +1,66 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.config.StartupProperties;
+import com.example.crypto_backend.marketdata.BookLevelEvent;
+import com.example.crypto_backend.marketdata.MarketDataPublisher;
+import com.example.crypto_backend.metrics.TradingMetrics;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.repository.OrderRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderBookManagerTests {
+	private static final long COIN = 1_00000000L;
+
+	private final OrderRepo orderRepo = mock(OrderRepo.class);
+	private final MarketDataPublisher publisher = mock(MarketDataPublisher.class);
+	private final OrderBookManager manager = new OrderBookManager(orderRepo, new EngineProperties(), publisher,
+			new BookPersistence(new JournalProperties(), null), new TradingMetrics(new SimpleMeterRegistry()),
+			new StartupProperties());
+
+	private static Order order(String id, OrderType type, long price, long quantity, OrderStatus status) {
+		return new Order(id, "btc", "alice", type, price, quantity, status, LocalDateTime.now());
+	}
+
+	@Test
+	void applyUnwrittenRestsPendingOrdersAndRemovesFinishedOnes() {
+		manager.applyUnwritten(List.of(
+				order("s1", OrderType.SELL, 500_00, COIN, OrderStatus.PENDING),
+				order("s2", OrderType.SELL, 500_00, COIN, OrderStatus.PENDING)));
+		manager.applyUnwritten(List.of(order("s1", OrderType.SELL, 500_00, COIN, OrderStatus.COMPLETED)));
+
+		assertEquals(1, manager.getBook("btc").size());
+		assertEquals("btc", manager.findCoin("s2"));
+		assertNull(manager.findCoin("s1"));
+		verify(publisher).publishLevel(new BookLevelEvent("btc", OrderType.SELL, 500_00, 2 * COIN, 2));
+		verify(publisher).publishLevel(new BookLevelEvent("btc", OrderType.SELL, 500_00, COIN, 1));
+	}
+
+	@Test
+	void reloadReplacesTheBookWithThePersistedOrders() {
+		manager.applyUnwritten(List.of(
+				order("b1", OrderType.BUY, 400_00, COIN, OrderStatus.PENDING),
+				order("s1", OrderType.SELL, 500_00, COIN, OrderStatus.PENDING)));
+		when(orderRepo.findAllByCoinIdAndStatusOrderByTimeStampAsc("btc", OrderStatus.PENDING))
+				.thenReturn(List.of(order("b1", OrderType.BUY, 400_00, COIN, OrderStatus.PENDING)));
+
+		manager.reload("btc");
+
+		assertEquals(1, manager.getBook("btc").size());
+		assertEquals("btc", manager.findCoin("b1"));
+		assertNull(manager.findCoin("s1"));
+		// The unwritten ask is gone, subscribers are told its level is empty
+		verify(publisher).publishLevel(new BookLevelEvent("btc", OrderType.SELL, 500_00, 0, 0));
+	}
+}
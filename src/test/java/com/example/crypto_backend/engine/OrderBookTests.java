@@ -0,0 +1,83 @@
+package com.example.crypto_backend.engine;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTests {
+
+	private static Order order(String id, String user, OrderType type, long price, long quantity) {
+		return new Order(id, "btc", user, type, price, quantity, OrderStatus.PENDING, LocalDateTime.now());
+	}
+
+	@Test
+	void candidatesFollowPriceThenTimePriority() {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("s1", "alice", OrderType.SELL, 10100, 1_00000000L));
+		book.add(order("s2", "bob", OrderType.SELL, 10000, 1_00000000L));
+		book.add(order("s3", "carol", OrderType.SELL, 10000, 1_00000000L));
+		book.add(order("s4", "dave", OrderType.SELL, 10200, 1_00000000L));
+
+		List<Order> candidates = book.findCandidates(order("b1", "erin", OrderType.BUY, 10100, 5_00000000L));
+
+		assertEquals(List.of("s2", "s3", "s1"), candidates.stream().map(Order::getOrderId).toList());
+	}
+
+	@Test
+	void candidatesSkipOwnOrdersAndStopOnceFilled() {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("b1", "alice", OrderType.BUY, 10000, 2_00000000L));
+		book.add(order("b2", "bob", OrderType.BUY, 10000, 2_00000000L));
+		book.add(order("b3", "carol", OrderType.BUY, 9900, 2_00000000L));
+
+		List<Order> candidates = book.findCandidates(order("s1", "alice", OrderType.SELL, 9900, 3_00000000L));
+
+		assertEquals(List.of("b2", "b3"), candidates.stream().map(Order::getOrderId).toList());
+	}
+
+	@Test
+	void removedOrdersAreNoLongerCandidates() {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("s1", "alice", OrderType.SELL, 10000, 1_00000000L));
+		assertTrue(book.remove("s1"));
+
+		assertTrue(book.findCandidates(order("b1", "bob", OrderType.BUY, 10000, 1_00000000L)).isEmpty());
+		assertEquals(0, book.size());
+	}
+
+	@Test
+	void removingFromTheMiddleKeepsTheRestOfTheLevelInOrder() {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("s1", "alice", OrderType.SELL, 10000, 1_00000000L));
+		book.add(order("s2", "bob", OrderType.SELL, 10000, 2_00000000L));
+		book.add(order("s3", "carol", OrderType.SELL, 10000, 3_00000000L));
+
+		assertTrue(book.remove("s2"));
+
+		PriceLevel level = book.getLevel(OrderType.SELL, 10000);
+		assertEquals(2, level.getOrderCount());
+		assertEquals(4_00000000L, level.getTotalQuantity());
+		assertEquals(List.of("s1", "s3"), book.findCandidates(order("b1", "erin", OrderType.BUY, 10000, 9_00000000L))
+				.stream().map(Order::getOrderId).toList());
+	}
+
+	@Test
+	void reducingQuantityKeepsQueuePosition() {
+		OrderBook book = new OrderBook("btc");
+		book.add(order("s1", "alice", OrderType.SELL, 10000, 2_00000000L));
+		book.add(order("s2", "bob", OrderType.SELL, 10000, 1_00000000L));
+
+		assertTrue(book.replace(order("s1", "alice", OrderType.SELL, 10000, 1_00000000L)));
+
+		assertEquals(2_00000000L, book.getLevel(OrderType.SELL, 10000).getTotalQuantity());
+		assertEquals(List.of("s1"), book.findCandidates(order("b1", "erin", OrderType.BUY, 10000, 1_00000000L))
+				.stream().map(Order::getOrderId).toList());
+	}
+}
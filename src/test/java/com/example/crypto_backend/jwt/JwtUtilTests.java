@@ -0,0 +1,91 @@
+package com.example.crypto_backend.jwt;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtUtilTests {
+	private final AtomicLong now = new AtomicLong(Instant.parse("2024-05-01T12:00:00Z").toEpochMilli());
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private JwtUtil jwtUtil;
+
+	@BeforeEach
+	void setUp() {
+		Clock clock = mock(Clock.class);
+		when(clock.millis()).thenAnswer(invocation -> now.get());
+		when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now.get()));
+		JwtProperties properties = new JwtProperties();
+		properties.setSecret("test-secret");
+		properties.setIssuer("crypto-backend");
+		properties.setExpiration(60_000L);
+		properties.setCacheSize(2);
+		jwtUtil = new JwtUtil(properties, registry, clock);
+	}
+
+	private long verifications() {
+		return registry.get("jwt.verify").timer().count();
+	}
+
+	@Test
+	void repeatedTokenIsServedFromTheCache() {
+		String token = jwtUtil.generateToken("alice", "USER");
+
+		JwtPrincipal first = jwtUtil.authenticate(token);
+		JwtPrincipal second = jwtUtil.authenticate(token);
+
+		assertEquals("alice", second.username());
+		assertEquals(first, second);
+		assertEquals(1, verifications());
+		assertEquals(1, registry.get("jwt.cache.hits").counter().count());
+	}
+
+	@Test
+	void expiredTokenLeavesTheCacheAndFailsVerification() {
+		String token = jwtUtil.generateToken("alice", "USER");
+		jwtUtil.authenticate(token);
+
+		now.addAndGet(61_000);
+
+		assertThrows(TokenExpiredException.class, () -> jwtUtil.authenticate(token));
+		assertEquals(0, jwtUtil.cachedTokens());
+	}
+
+	@Test
+	void fullCacheEvictsTheLeastRecentlyUsedToken() {
+		String alice = jwtUtil.generateToken("alice", "USER");
+		String bob = jwtUtil.generateToken("bob", "USER");
+		String carol = jwtUtil.generateToken("carol", "USER");
+		jwtUtil.authenticate(alice);
+		jwtUtil.authenticate(bob);
+		jwtUtil.authenticate(alice);
+
+		jwtUtil.authenticate(carol);
+		assertEquals(2, jwtUtil.cachedTokens());
+		assertEquals(3, verifications());
+
+		jwtUtil.authenticate(alice);
+		assertEquals(3, verifications());
+		jwtUtil.authenticate(bob);
+		assertEquals(4, verifications());
+	}
+
+	@Test
+	void tamperedTokenIsRejectedAndNotCached() {
+		String token = jwtUtil.generateToken("alice", "USER");
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertThrows(JWTVerificationException.class, () -> jwtUtil.authenticate(tampered));
+		assertEquals(0, jwtUtil.cachedTokens());
+	}
+}
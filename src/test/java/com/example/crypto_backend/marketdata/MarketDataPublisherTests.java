@@ -0,0 +1,165 @@
+package com.example.crypto_backend.marketdata;
+
+import com.example.crypto_backend.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarketDataPublisherTests {
+	private final MarketDataProperties properties = new MarketDataProperties();
+	private MarketDataPublisher publisher;
+
+	// Records the trade prices it is sent; a blocked emitter holds its first send until released
+	private static final class RecordingEmitter extends SseEmitter {
+		final List<Long> prices = new CopyOnWriteArrayList<>();
+		final CountDownLatch sending = new CountDownLatch(1);
+		final CountDownLatch release;
+		volatile boolean completed;
+
+		RecordingEmitter(boolean blocked) {
+			this.release = new CountDownLatch(blocked ? 1 : 0);
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			sending.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			builder.build().forEach(item -> {
+				if (item.getData() instanceof TradeEvent trade) prices.add(trade.price());
+			});
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+	}
+
+	private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+	private volatile boolean nextBlocked;
+
+	private MarketDataPublisher start() {
+		publisher = new MarketDataPublisher(properties) {
+			@Override
+			SseEmitter newEmitter(long timeoutMillis) {
+				RecordingEmitter emitter = new RecordingEmitter(nextBlocked);
+				emitters.add(emitter);
+				return emitter;
+			}
+		};
+		return publisher;
+	}
+
+	@AfterEach
+	void tearDown() {
+		emitters.forEach(e -> e.release.countDown());
+		publisher.shutdown();
+	}
+
+	private RecordingEmitter subscribe(String coinId, boolean blocked) {
+		nextBlocked = blocked;
+		return (RecordingEmitter) publisher.subscribe(coinId).getEmitter();
+	}
+
+	private void trade(String coinId, long price) {
+		publisher.publishTrades(List.of(new Transaction(null, "alice", "bob", 1, coinId, price, LocalDateTime.now())));
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	void tradesReachTheSubscribersOfTheirCoin() throws Exception {
+		start();
+		RecordingEmitter btc = subscribe("btc", false);
+		RecordingEmitter eth = subscribe("eth", false);
+		RecordingEmitter all = subscribe(null, false);
+
+		trade("btc", 100);
+		trade("eth", 200);
+
+		await(() -> all.prices.size() == 2);
+		await(() -> btc.prices.size() == 1 && eth.prices.size() == 1);
+		assertEquals(List.of(100L), btc.prices);
+		assertEquals(List.of(200L), eth.prices);
+		assertEquals(List.of(100L, 200L), all.prices);
+	}
+
+	@Test
+	void overflowingSubscriberIsDisconnectedInsteadOfLosingTrades() throws Exception {
+		properties.setSubscriberBufferSize(2);
+		properties.setSenderThreads(2);
+		start();
+		RecordingEmitter slow = subscribe("btc", true);
+		RecordingEmitter fast = subscribe("btc", false);
+
+		trade("btc", 1);
+		assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+		// Two fit in the slow subscriber's buffer, the third overflows it. The fast one keeps up with each.
+		for (long price = 2; price <= 4; price++) {
+			trade("btc", price);
+			int received = (int) price;
+			await(() -> fast.prices.size() == received);
+		}
+
+		slow.release.countDown();
+		await(() -> slow.completed);
+		assertEquals(List.of(1L), slow.prices);
+		assertEquals(List.of(1L, 2L, 3L, 4L), fast.prices);
+	}
+
+	@Test
+	void blockedWriteIsDisconnectedAndItsSenderReplaced() throws Exception {
+		properties.setSenderThreads(1);
+		properties.setWriteTimeoutMillis(100);
+		start();
+		RecordingEmitter stuck = subscribe("btc", true);
+		RecordingEmitter other = subscribe("btc", false);
+
+		trade("btc", 1);
+		assertTrue(stuck.sending.await(5, TimeUnit.SECONDS));
+
+		// The only sender is blocked, the other subscriber is served once it has been replaced
+		await(() -> other.prices.size() == 1);
+		trade("btc", 2);
+		await(() -> other.prices.size() == 2);
+		assertFalse(stuck.completed);
+
+		stuck.release.countDown();
+		await(() -> stuck.completed);
+		assertEquals(List.of(1L), stuck.prices);
+	}
+
+	@Test
+	void subscriptionsBeyondTheLimitAreRefused() {
+		properties.setMaxSubscribers(2);
+		start();
+		subscribe("btc", false);
+		publisher.subscribeOrders("alice");
+
+		assertThrows(RejectedExecutionException.class, () -> publisher.subscribe(null));
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.crypto_backend.metrics;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.OrderBook;
+import com.example.crypto_backend.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradingMetricsTests {
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final TradingMetrics metrics = new TradingMetrics(registry);
+
+	private static Order order(String id, OrderType type, long price) {
+		return new Order(id, "btc", "alice", type, price, 1, OrderStatus.PENDING, null);
+	}
+
+	private double gauge(String name, String side) {
+		var search = registry.get(name).tag("coin", "btc");
+		return (side == null ? search : search.tag("side", side)).gauge().value();
+	}
+
+	@Test
+	void bookGaugesFollowTheBook() {
+		OrderBook book = new OrderBook("btc");
+		metrics.registerBook("btc", () -> book);
+
+		book.add(order("b1", OrderType.BUY, 100_00));
+		book.add(order("b2", OrderType.BUY, 100_00));
+		book.add(order("b3", OrderType.BUY, 99_00));
+		book.add(order("s1", OrderType.SELL, 101_00));
+
+		assertEquals(4, gauge("trading.book.orders", null));
+		assertEquals(2, gauge("trading.book.levels", "buy"));
+		assertEquals(1, gauge("trading.book.levels", "sell"));
+	}
+
+	@Test
+	void gaugesReadTheCurrentBookAndZeroWithoutOne() {
+		AtomicReference<OrderBook> current = new AtomicReference<>();
+		metrics.registerBook("btc", current::get);
+		assertEquals(0, gauge("trading.book.orders", null));
+
+		// A book swapped in later, as after a failed recovery, is what the gauges report
+		OrderBook replacement = new OrderBook("btc");
+		replacement.add(order("s1", OrderType.SELL, 101_00));
+		current.set(replacement);
+
+		assertEquals(1, gauge("trading.book.orders", null));
+		assertEquals(0, gauge("trading.book.levels", "buy"));
+		assertEquals(1, gauge("trading.book.levels", "sell"));
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.Enum.CandleResolution;
+import com.example.crypto_backend.config.StartupProperties;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.model.Candle;
+import com.example.crypto_backend.model.Transaction;
+import com.example.crypto_backend.repository.CandleRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CandleServiceTests {
+	private static final Instant NOON = Instant.parse("2024-05-01T12:00:00Z");
+
+	private final CandleRepo candleRepo = mock(CandleRepo.class);
+	private final Clock clock = mock(Clock.class);
+	private CandleService candleService;
+
+	@BeforeEach
+	void setUp() {
+		ScaleProperties scale = new ScaleProperties();
+		scale.setCoins(Set.of("btc"));
+		candleService = new CandleService(candleRepo, scale, new StartupProperties(), clock);
+		when(candleRepo.findByCoinIdAndResolutionAndOpenTimeBetweenOrderByOpenTimeAsc(any(), any(), any(), any()))
+				.thenReturn(List.of());
+	}
+
+	private void tradeAt(Instant time, long price, long quantity) {
+		when(clock.instant()).thenReturn(time);
+		candleService.onTrades(List.of(new Transaction(null, "seller", "buyer", quantity, "btc", price, null)));
+	}
+
+	private Candle oneMinute(Instant from, Instant to) {
+		List<Candle> candles = candleService.getCandles("btc", CandleResolution.ONE_MINUTE, from, to);
+		assertEquals(1, candles.size());
+		return candles.get(0);
+	}
+
+	@Test
+	void tradesOfOneBucketAreMergedIntoOneCandle() {
+		tradeAt(NOON.plusSeconds(10), 100_00, 2);
+		tradeAt(NOON.plusSeconds(20), 120_00, 3);
+		tradeAt(NOON.plusSeconds(59), 90_00, 1);
+
+		Candle candle = oneMinute(NOON.minusSeconds(60), NOON.plusSeconds(60));
+		assertEquals(NOON, candle.getOpenTime());
+		assertEquals(100_00, candle.getOpen());
+		assertEquals(120_00, candle.getHigh());
+		assertEquals(90_00, candle.getLow());
+		assertEquals(90_00, candle.getClose());
+		assertEquals(6, candle.getVolume());
+		assertEquals(3, candle.getTradeCount());
+		verify(candleRepo, never()).save(any());
+	}
+
+	@Test
+	void bucketsAreCutInUtcForEveryResolution() {
+		Instant time = Instant.parse("2024-05-01T13:47:31Z");
+
+		assertEquals(Instant.parse("2024-05-01T13:47:00Z"), CandleService.bucketStart(time, CandleResolution.ONE_MINUTE));
+		assertEquals(Instant.parse("2024-05-01T13:45:00Z"), CandleService.bucketStart(time, CandleResolution.FIVE_MINUTES));
+		assertEquals(Instant.parse("2024-05-01T13:00:00Z"), CandleService.bucketStart(time, CandleResolution.ONE_HOUR));
+		assertEquals(Instant.parse("2024-05-01T00:00:00Z"), CandleService.bucketStart(time, CandleResolution.ONE_DAY));
+	}
+
+	@Test
+	void tradeInTheNextBucketWritesTheClosedOne() {
+		tradeAt(NOON.plusSeconds(10), 100_00, 2);
+		tradeAt(NOON.plusSeconds(70), 110_00, 1);
+
+		ArgumentCaptor<Candle> saved = ArgumentCaptor.forClass(Candle.class);
+		verify(candleRepo, timeout(1000)).save(saved.capture());
+		assertEquals(NOON, saved.getValue().getOpenTime());
+		assertEquals(2, saved.getValue().getVolume());
+		assertEquals(NOON.plusSeconds(60), oneMinute(NOON, NOON.plusSeconds(120)).getOpenTime());
+	}
+
+	@Test
+	void bucketFlushedByThePreviousRunIsContinued() {
+		Candle flushed = new Candle("btc:1m:" + NOON, "btc", CandleResolution.ONE_MINUTE, NOON,
+				100_00, 130_00, 95_00, 120_00, 5, 4);
+		when(candleRepo.findAllById(anyIterable())).thenReturn(List.of(flushed));
+		when(clock.instant()).thenReturn(NOON.plusSeconds(30));
+		candleService.preload();
+
+		tradeAt(NOON.plusSeconds(40), 140_00, 1);
+
+		Candle candle = oneMinute(NOON, NOON.plusSeconds(60));
+		assertEquals(100_00, candle.getOpen());
+		assertEquals(140_00, candle.getHigh());
+		assertEquals(95_00, candle.getLow());
+		assertEquals(140_00, candle.getClose());
+		assertEquals(6, candle.getVolume());
+		assertEquals(5, candle.getTradeCount());
+		verify(candleRepo, never()).findById(any());
+	}
+
+	@Test
+	void wideRangesAreCutToTheMostRecentCandles() {
+		Instant to = NOON;
+		candleService.getCandles("btc", CandleResolution.ONE_HOUR, Instant.EPOCH, to);
+
+		Instant earliest = to.minus(Duration.ofHours(CandleService.MAX_CANDLES - 1));
+		verify(candleRepo).findByCoinIdAndResolutionAndOpenTimeBetweenOrderByOpenTimeAsc(
+				eq("btc"), eq(CandleResolution.ONE_HOUR), eq(earliest), eq(to));
+	}
+}
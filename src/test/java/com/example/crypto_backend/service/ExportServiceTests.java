@@ -0,0 +1,93 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportServiceTests {
+	private static final LocalDateTime TIME = LocalDateTime.of(2024, 5, 1, 12, 0, 0);
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private final ExportService exportService = new ExportService(mongoTemplate, objectMapper);
+
+	private String exportOrders(ExportService.Format format, Order... orders) throws Exception {
+		when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(orders));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportService.exportOrders(null, null, null, format, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static Order order(String id, String userName) {
+		return new Order(id, "btc", userName, OrderType.BUY, 500_00, 1, OrderStatus.PENDING, TIME);
+	}
+
+	@Test
+	void csvQuotesValuesWithSeparatorsQuotesAndLineBreaks() throws Exception {
+		String csv = exportOrders(ExportService.Format.CSV,
+				order("o1", "plain"),
+				order("o2", "smith, john"),
+				order("o3", "say \"hi\""),
+				order("o4", "two\nlines"),
+				order("o5", "carriage\rreturn"));
+
+		assertEquals("""
+				orderId,timeStamp,coinId,userName,type,price,quantity,status
+				o1,2024-05-01T12:00,btc,plain,BUY,50000,1,PENDING
+				o2,2024-05-01T12:00,btc,"smith, john",BUY,50000,1,PENDING
+				o3,2024-05-01T12:00,btc,"say ""hi\"\"",BUY,50000,1,PENDING
+				o4,2024-05-01T12:00,btc,"two
+				lines",BUY,50000,1,PENDING
+				o5,2024-05-01T12:00,btc,"carriage\rreturn",BUY,50000,1,PENDING
+				""", csv);
+	}
+
+	@Test
+	void csvWritesMissingValuesAsEmptyFields() throws Exception {
+		when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+				.thenReturn(Stream.of(new Transaction("t1", null, "bob", 1, "btc", 500_00, null)));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		exportService.exportTransactions(null, null, null, ExportService.Format.CSV, out);
+
+		assertEquals("""
+				transactionId,matchingTimeStamp,coinId,price,quantity,buyerUserName,sellerUserName
+				t1,,btc,50000,1,bob,
+				""", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void ndjsonEndsEveryRecordWithOneNewline() throws Exception {
+		String ndjson = exportOrders(ExportService.Format.NDJSON, order("o1", "alice"), order("o2", "two\nlines"));
+
+		String[] lines = ndjson.split("\n", -1);
+		assertEquals(3, lines.length);
+		assertEquals("", lines[2]);
+		JsonNode first = objectMapper.readTree(lines[0]);
+		assertEquals("o1", first.get("orderId").asText());
+		assertEquals("two\nlines", objectMapper.readTree(lines[1]).get("userName").asText());
+	}
+
+	@Test
+	void ndjsonOfNothingIsEmpty() throws Exception {
+		assertEquals("", exportOrders(ExportService.Format.NDJSON));
+	}
+}
@@ -0,0 +1,47 @@
+package com.example.crypto_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorTests {
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void decodeReturnsWhatWasEncoded() {
+		// Mongo keeps milliseconds, so that is what a cursor carries
+		KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000), "665f1c2e9b1d4a3f8c7e6d5b");
+
+		assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void roundTripKeepsTimesBeforeTheEpochAndIdsWithSeparators() {
+		KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000), "a:b:c");
+
+		assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void missingCursorMeansTheFirstPage() {
+		assertNull(KeysetCursor.decode(null));
+		assertNull(KeysetCursor.decode(" "));
+	}
+
+	@Test
+	void tamperedCursorsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(token("1714566615123")));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(token("yesterday:o1")));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(token("1714566615123:")));
+	}
+}
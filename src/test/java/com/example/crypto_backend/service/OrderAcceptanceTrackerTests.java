@@ -0,0 +1,51 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.Enum.AcceptanceState;
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.EngineProperties;
+import com.example.crypto_backend.model.Order;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderAcceptanceTrackerTests {
+
+	private static Order order(String id) {
+		return new Order(id, "btc", "alice", OrderType.BUY, 100_00, 1, OrderStatus.PENDING, null);
+	}
+
+	private static OrderAcceptanceTracker tracker(int maxRejections) {
+		EngineProperties properties = new EngineProperties();
+		properties.setMaxTrackedRejections(maxRejections);
+		return new OrderAcceptanceTracker(properties);
+	}
+
+	@Test
+	void unexpiredRejectionsAreCappedByDroppingTheOldest() {
+		OrderAcceptanceTracker tracker = tracker(3);
+		for (int i = 1; i <= 5; i++) {
+			tracker.rejected(order("o" + i), "Not enough USD balance for the order");
+		}
+
+		assertNull(tracker.get("o1"));
+		assertNull(tracker.get("o2"));
+		for (int i = 3; i <= 5; i++) {
+			assertEquals(AcceptanceState.REJECTED, tracker.get("o" + i).state());
+		}
+	}
+
+	@Test
+	void queuedOrdersAreNotDroppedToMakeRoomForRejections() {
+		OrderAcceptanceTracker tracker = tracker(1);
+		tracker.queued(order("q1"));
+		tracker.rejected(order("o1"), "rejected");
+		tracker.rejected(order("o2"), "rejected");
+
+		assertNotNull(tracker.get("q1"));
+		assertNull(tracker.get("o1"));
+		assertNotNull(tracker.get("o2"));
+	}
+}
@@ -0,0 +1,282 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.DTO.BatchOrderResult;
+import com.example.crypto_backend.DTO.OrderAmendment;
+import com.example.crypto_backend.Enum.AcceptanceState;
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.config.MongoConcurrencyLimiter;
+import com.example.crypto_backend.config.MongoLimiterProperties;
+import com.example.crypto_backend.config.StartupProperties;
+import com.example.crypto_backend.engine.BalanceLedger;
+import com.example.crypto_backend.engine.BookPersistence;
+import com.example.crypto_backend.engine.EngineProperties;
+import com.example.crypto_backend.engine.JournalProperties;
+import com.example.crypto_backend.engine.OrderBookManager;
+import com.example.crypto_backend.engine.OrderSequencer;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.engine.Settlement;
+import com.example.crypto_backend.marketdata.LastTradePrices;
+import com.example.crypto_backend.marketdata.MarketDataPublisher;
+import com.example.crypto_backend.marketdata.OrderUpdateEvent;
+import com.example.crypto_backend.metrics.TradingMetrics;
+import com.example.crypto_backend.model.Asset;
+import com.example.crypto_backend.model.Order;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.OrderRepo;
+import com.example.crypto_backend.repository.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// OrderService on the real engine, book and ledger; only Mongo and the publishers are mocked
+class OrderServiceTests {
+	private static final long COIN = 1_00000000L;
+
+	private final OrderRepo orderRepo = mock(OrderRepo.class);
+	private final UserRepo userRepo = mock(UserRepo.class);
+	private final SettlementService settlementService = mock(SettlementService.class);
+	private final MarketDataPublisher marketDataPublisher = mock(MarketDataPublisher.class);
+	private final Map<String, User> users = new HashMap<>();
+	private OrderSequencer orderSequencer;
+	private BalanceLedger balanceLedger;
+	private OrderBookManager orderBookManager;
+	private OrderService orderService;
+
+	@BeforeEach
+	void setUp() {
+		when(userRepo.getUserByUserName(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(users.get(invocation.<String>getArgument(0))));
+
+		EngineProperties engineProperties = new EngineProperties();
+		engineProperties.setPartitions(2);
+		TradingMetrics metrics = new TradingMetrics(new SimpleMeterRegistry());
+		ScaleProperties scaleProperties = new ScaleProperties();
+		scaleProperties.setCoins(Set.of("btc"));
+		orderSequencer = new OrderSequencer(engineProperties);
+		balanceLedger = new BalanceLedger(userRepo, orderRepo, scaleProperties);
+		orderBookManager = new OrderBookManager(orderRepo, engineProperties, mock(MarketDataPublisher.class),
+				new BookPersistence(new JournalProperties(), orderSequencer), metrics, new StartupProperties());
+		orderService = new OrderService(orderRepo, balanceLedger, settlementService, orderBookManager,
+				orderSequencer, scaleProperties, marketDataPublisher, mock(CandleService.class),
+				mock(LastTradePrices.class), new MongoConcurrencyLimiter(new MongoLimiterProperties(),
+						new StandardEnvironment()),
+				new OrderAcceptanceTracker(engineProperties), metrics);
+	}
+
+	@AfterEach
+	void tearDown() {
+		orderSequencer.shutdown();
+	}
+
+	private void user(String userName, long usd, long btc) {
+		Map<String, Asset> assets = new HashMap<>();
+		assets.put("usd", asset("usd", usd));
+		assets.put("btc", asset("btc", btc));
+		users.put(userName, new User(null, userName, "password", userName, "USER", null, assets));
+	}
+
+	private static Asset asset(String assetId, long balance) {
+		Asset asset = new Asset();
+		asset.setAssetId(assetId);
+		asset.setBalance(balance);
+		return asset;
+	}
+
+	private static Order order(String userName, OrderType type, long price, long quantity) {
+		return new Order(null, "btc", userName, type, price, quantity, OrderStatus.PENDING, null);
+	}
+
+	@Test
+	void orderForAnUnlistedCoinIsRefusedWithoutCreatingABook() {
+		user("alice", 1000_00, 0);
+		Order order = order("alice", OrderType.BUY, 500_00, COIN);
+		order.setCoinId("doge");
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> orderService.createOrder(order));
+
+		assertEquals("Unknown coin", e.getMessage());
+		assertNull(orderBookManager.findBook("doge"));
+		assertEquals(1000_00, balanceLedger.getAvailable("alice", "usd"));
+	}
+
+	@Test
+	void refusedAmendmentKeepsTheOriginalOrder() {
+		user("alice", 1000_00, 0);
+		Order placed = orderService.createOrder(order("alice", OrderType.BUY, 500_00, COIN));
+		assertEquals(500_00, balanceLedger.getAvailable("alice", "usd"));
+
+		// Three coins need a $1500 hold, the $1000 balance cannot cover it
+		assertThrows(RuntimeException.class,
+				() -> orderService.amendOrder(placed.getOrderId(), new OrderAmendment(null, 3 * COIN), "alice"));
+
+		Order resting = orderBookManager.getRestingOrder(placed.getOrderId());
+		assertNotNull(resting);
+		assertEquals(COIN, resting.getQuantity());
+		assertEquals(500_00, balanceLedger.getAvailable("alice", "usd"));
+	}
+
+	@Test
+	void failedReplacementWriteKeepsTheOriginalOrder() {
+		user("alice", 1000_00, 0);
+		Order placed = orderService.createOrder(order("alice", OrderType.BUY, 500_00, COIN));
+		when(settlementService.isAtomic(any(Settlement.class))).thenReturn(true);
+		doThrow(new RuntimeException("Error writing to the database")).when(settlementService).settle(any(Settlement.class));
+
+		assertThrows(RuntimeException.class,
+				() -> orderService.amendOrder(placed.getOrderId(), new OrderAmendment(400_00L, null), "alice"));
+
+		Order resting = orderBookManager.getRestingOrder(placed.getOrderId());
+		assertNotNull(resting);
+		assertEquals(500_00, resting.getPrice());
+		assertEquals(500_00, balanceLedger.getAvailable("alice", "usd"));
+		verify(orderRepo, times(0)).findAllByCoinIdAndStatusOrderByTimeStampAsc("btc", OrderStatus.PENDING);
+	}
+
+	@Test
+	void failedNonAtomicReplacementRebuildsTheBookFromMongo() {
+		user("alice", 1000_00, 0);
+		Order placed = orderService.createOrder(order("alice", OrderType.BUY, 500_00, COIN));
+		// Only the cancel of the original reached Mongo
+		when(orderRepo.findAllByCoinIdAndStatusOrderByTimeStampAsc("btc", OrderStatus.PENDING)).thenReturn(List.of());
+		doThrow(new RuntimeException("Error writing to the database")).when(settlementService).settle(any(Settlement.class));
+
+		assertThrows(RuntimeException.class,
+				() -> orderService.amendOrder(placed.getOrderId(), new OrderAmendment(400_00L, null), "alice"));
+
+		assertNull(orderBookManager.getRestingOrder(placed.getOrderId()));
+		assertEquals(0, orderBookManager.getBook("btc").size());
+	}
+
+	@Test
+	void amendmentToAHigherPriceMovesTheHold() {
+		user("alice", 1000_00, 0);
+		Order placed = orderService.createOrder(order("alice", OrderType.BUY, 500_00, COIN));
+
+		// The old $500 hold counts towards the new $800 one
+		Order replacement = orderService.amendOrder(placed.getOrderId(), new OrderAmendment(800_00L, null), "alice");
+
+		assertNull(orderBookManager.getRestingOrder(placed.getOrderId()));
+		assertNotNull(orderBookManager.getRestingOrder(replacement.getOrderId()));
+		assertEquals(200_00, balanceLedger.getAvailable("alice", "usd"));
+	}
+
+	@Test
+	void batchOrdersMatchEarlierOrdersOfTheSamePassInOneWrite() {
+		user("alice", 0, COIN);
+		user("bob", 1000_00, 0);
+
+		List<BatchOrderResult> results = orderService.createOrders(List.of(
+				order("alice", OrderType.SELL, 500_00, COIN),
+				order("bob", OrderType.BUY, 500_00, COIN)));
+
+		assertNull(results.get(0).error());
+		assertNull(results.get(1).error());
+		assertEquals(OrderStatus.COMPLETED, results.get(1).order().getStatus());
+		verify(settlementService, times(1)).settle(any(Settlement.class));
+		assertEquals(500_00, balanceLedger.getAvailable("alice", "usd"));
+		assertEquals(COIN, balanceLedger.getAvailable("bob", "btc"));
+		assertEquals(0, orderBookManager.getBook("btc").size());
+	}
+
+	@Test
+	void refusedBatchOrderLeavesTheOthersAlone() {
+		user("alice", 1000_00, 0);
+
+		List<BatchOrderResult> results = orderService.createOrders(List.of(
+				order("alice", OrderType.BUY, 600_00, COIN),
+				order("alice", OrderType.BUY, 600_00, COIN)));
+
+		assertNull(results.get(0).error());
+		assertEquals("Not enough USD balance for the order", results.get(1).error());
+		assertNotNull(orderBookManager.getRestingOrder(results.get(0).order().getOrderId()));
+		assertEquals(400_00, balanceLedger.getAvailable("alice", "usd"));
+	}
+
+	@Test
+	void failedBatchWriteRollsBackLedgerAndBook() {
+		user("alice", 0, COIN);
+		user("bob", 1000_00, 0);
+		doThrow(new RuntimeException("Error writing to the database")).when(settlementService).settle(any(Settlement.class));
+
+		List<BatchOrderResult> results = orderService.createOrders(List.of(
+				order("alice", OrderType.SELL, 500_00, COIN),
+				order("bob", OrderType.BUY, 400_00, COIN)));
+
+		assertEquals("Error writing to the database", results.get(0).error());
+		assertEquals("Error writing to the database", results.get(1).error());
+		// Nothing was persisted, so the reloaded book is empty and every hold is back
+		assertEquals(0, orderBookManager.getBook("btc").size());
+		assertEquals(COIN, balanceLedger.getAvailable("alice", "btc"));
+		assertEquals(1000_00, balanceLedger.getAvailable("bob", "usd"));
+	}
+
+	// Tasks of one engine run in order, so once this one has run everything queued before it is done
+	private void awaitEngine(String coinId) {
+		orderSequencer.submit(coinId, () -> null).join();
+	}
+
+	@Test
+	void asyncOrderIsQueuedUntilItsEngineProcessesIt() throws Exception {
+		user("alice", 1000_00, 0);
+		CountDownLatch engineBusy = new CountDownLatch(1);
+		orderSequencer.submit("btc", () -> {
+			try {
+				engineBusy.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+
+		String orderId = orderService.submitOrder(order("alice", OrderType.BUY, 500_00, COIN));
+		assertEquals(AcceptanceState.QUEUED, orderService.getOrderStatus(orderId, "alice").state());
+		assertThrows(AccessDeniedException.class, () -> orderService.getOrderStatus(orderId, "bob"));
+
+		engineBusy.countDown();
+		awaitEngine("btc");
+
+		// Processed orders are answered from the stored order
+		Order stored = orderBookManager.getRestingOrder(orderId);
+		when(orderRepo.findById(orderId)).thenReturn(Optional.of(stored));
+		OrderUpdateEvent status = orderService.getOrderStatus(orderId, "alice");
+		assertEquals(AcceptanceState.PROCESSED, status.state());
+		assertEquals(OrderStatus.PENDING, status.order().getStatus());
+		verify(marketDataPublisher).publishOrderUpdate(status);
+	}
+
+	@Test
+	void refusedAsyncOrderReportsItsReason() {
+		user("alice", 100_00, 0);
+
+		String orderId = orderService.submitOrder(order("alice", OrderType.BUY, 500_00, COIN));
+		awaitEngine("btc");
+
+		OrderUpdateEvent status = orderService.getOrderStatus(orderId, "alice");
+		assertEquals(AcceptanceState.REJECTED, status.state());
+		assertEquals("Not enough USD balance for the order", status.error());
+		verify(marketDataPublisher).publishOrderUpdate(status);
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.DTO.AssetValuation;
+import com.example.crypto_backend.DTO.PortfolioValuation;
+import com.example.crypto_backend.engine.ScaleProperties;
+import com.example.crypto_backend.marketdata.LastTradePrices;
+import com.example.crypto_backend.model.Asset;
+import com.example.crypto_backend.model.User;
+import com.example.crypto_backend.repository.UserRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioServiceTests {
+	private final UserRepo userRepo = mock(UserRepo.class);
+	private final LastTradePrices lastTradePrices = mock(LastTradePrices.class);
+	private final PortfolioProperties properties = new PortfolioProperties();
+	private PortfolioService portfolioService;
+
+	private PortfolioService portfolioService() {
+		ScaleProperties scale = new ScaleProperties();
+		scale.setQuantityDecimals(Map.of("eth", 6));
+		portfolioService = new PortfolioService(userRepo, lastTradePrices, scale, properties);
+		return portfolioService;
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (portfolioService != null) portfolioService.shutdown();
+	}
+
+	private static User user(String userName, Map<String, Long> balances) {
+		Map<String, Asset> assets = new LinkedHashMap<>();
+		balances.forEach((assetId, balance) -> {
+			Asset asset = new Asset();
+			asset.setBalance(balance);
+			assets.put(assetId, asset);
+		});
+		return new User(null, userName, "password", userName, "USER", null, assets);
+	}
+
+	private static AssetValuation asset(PortfolioValuation portfolio, String assetId) {
+		return portfolio.assets().stream().filter(a -> a.assetId().equals(assetId)).findFirst().orElseThrow();
+	}
+
+	@Test
+	void coinsAreValuedAtTheLastTradePriceInTheirOwnDecimals() {
+		Map<String, Long> balances = new LinkedHashMap<>();
+		balances.put("usd", 100_00L);
+		balances.put("btc", 50_000_000L);
+		balances.put("eth", 2_500_000L);
+		when(userRepo.getUserByUserName("alice")).thenReturn(Optional.of(user("alice", balances)));
+		when(lastTradePrices.get("btc")).thenReturn(60_000_00L);
+		when(lastTradePrices.get("eth")).thenReturn(3_000_00L);
+
+		PortfolioValuation portfolio = portfolioService().getPortfolio("alice");
+
+		// 0.5 btc at $60,000 and 2.5 eth (6 decimals) at $3,000, plus $100
+		assertEquals(30_000_00L, asset(portfolio, "btc").value());
+		assertEquals(7_500_00L, asset(portfolio, "eth").value());
+		assertEquals(100_00L, asset(portfolio, "usd").value());
+		assertEquals(37_600_00L, portfolio.totalValue());
+	}
+
+	@Test
+	void coinWithoutATradeIsListedButLeftOutOfTheTotal() {
+		Map<String, Long> balances = new LinkedHashMap<>();
+		balances.put("usd", 100_00L);
+		balances.put("sol", 7_00000000L);
+		when(userRepo.getUserByUserName("alice")).thenReturn(Optional.of(user("alice", balances)));
+		when(lastTradePrices.get("sol")).thenReturn(null);
+
+		PortfolioValuation portfolio = portfolioService().getPortfolio("alice");
+
+		assertEquals(7_00000000L, asset(portfolio, "sol").balance());
+		assertNull(asset(portfolio, "sol").price());
+		assertNull(asset(portfolio, "sol").value());
+		assertEquals(100_00L, portfolio.totalValue());
+	}
+
+	@Test
+	void valuesBeyondALongProductAreStillExact() {
+		// 90 million btc at $1,000,000: price times quantity in units does not fit in 64 bits
+		when(userRepo.getUserByUserName("whale")).thenReturn(Optional.of(user("whale", Map.of("btc", 90_000_000_00000000L))));
+		when(lastTradePrices.get("btc")).thenReturn(1_000_000_00L);
+
+		PortfolioValuation portfolio = portfolioService().getPortfolio("whale");
+
+		assertEquals(90_000_000_000_000_00L, portfolio.totalValue());
+	}
+
+	@Test
+	void bulkValuationSkipsUnknownUsersAndEnforcesItsLimit() {
+		properties.setBatchSize(2);
+		properties.setMaxUsers(3);
+		when(userRepo.findAssetsByUserNameIn(anyCollection())).thenAnswer(invocation -> invocation
+				.<Collection<String>>getArgument(0).stream()
+				.filter(name -> !name.equals("ghost"))
+				.map(name -> user(name, Map.of("usd", 1_00L)))
+				.toList());
+		PortfolioService service = portfolioService();
+
+		List<PortfolioValuation> portfolios = service.getPortfolios(List.of("alice", "ghost", "bob"));
+
+		assertEquals(List.of("alice", "bob"), portfolios.stream().map(PortfolioValuation::userName).toList());
+		assertThrows(IllegalArgumentException.class, () -> service.getPortfolios(List.of("a", "b", "c", "d")));
+	}
+}
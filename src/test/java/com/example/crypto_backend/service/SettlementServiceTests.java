@@ -0,0 +1,78 @@
+package com.example.crypto_backend.service;
+
+import com.example.crypto_backend.Enum.OrderStatus;
+import com.example.crypto_backend.Enum.OrderType;
+import com.example.crypto_backend.engine.Settlement;
+import com.example.crypto_backend.metrics.TradingMetrics;
+import com.example.crypto_backend.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SettlementServiceTests {
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final MongoTransactionManager transactionManager = mock(MongoTransactionManager.class);
+	private final SettlementProperties properties = new SettlementProperties();
+	private SettlementService settlementService;
+
+	@BeforeEach
+	void setUp() {
+		when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class)))
+				.thenAnswer(invocation -> mock(BulkOperations.class, RETURNS_SELF));
+		settlementService = new SettlementService(mongoTemplate, transactionManager, properties,
+				new TradingMetrics(new SimpleMeterRegistry()));
+	}
+
+	private static Order order(String id, OrderStatus status) {
+		return new Order(id, "btc", "alice", OrderType.BUY, 500_00, 1, status, null);
+	}
+
+	@Test
+	void amendmentWithoutFillsIsWrittenInOneTransaction() {
+		Settlement settlement = new Settlement();
+		settlement.saveOrder(order("o1", OrderStatus.CANCELLED));
+		settlement.saveOrder(order("o2", OrderStatus.PENDING));
+
+		settlementService.settle(settlement);
+
+		verify(transactionManager).getTransaction(any());
+		assertTrue(settlementService.isAtomic(settlement));
+	}
+
+	@Test
+	void singleDocumentNeedsNoTransaction() {
+		Settlement settlement = new Settlement();
+		settlement.saveOrder(order("o1", OrderStatus.CANCELLED));
+
+		settlementService.settle(settlement);
+
+		verify(transactionManager, never()).getTransaction(any());
+		properties.setTransactional(false);
+		assertTrue(settlementService.isAtomic(settlement));
+	}
+
+	@Test
+	void severalDocumentsWithoutTransactionsAreNotAtomic() {
+		properties.setTransactional(false);
+		Settlement settlement = new Settlement();
+		settlement.saveOrder(order("o1", OrderStatus.CANCELLED));
+		settlement.saveOrder(order("o2", OrderStatus.PENDING));
+
+		settlementService.settle(settlement);
+
+		verify(transactionManager, never()).getTransaction(any());
+		assertFalse(settlementService.isAtomic(settlement));
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.crypto_backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserListingServiceTests {
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final UserListingService userListingService = new UserListingService(mongoTemplate, objectMapper);
+
+	private static Document user(ObjectId id, String userName) {
+		return new Document("_id", id).append("userName", userName).append("role", "USER");
+	}
+
+	private JsonNode list(Set<String> fields, String cursor, int size, Document... users) throws Exception {
+		when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("user"))).thenReturn(Stream.of(users));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		userListingService.writeUsers(fields, cursor, size, out);
+		return objectMapper.readTree(out.toByteArray());
+	}
+
+	@Test
+	void defaultFieldsAreUsedAndUnknownOnesRejected() {
+		assertEquals(Set.copyOf(UserListingService.DEFAULT_FIELDS), userListingService.resolveFields(null));
+		assertEquals(Set.copyOf(UserListingService.DEFAULT_FIELDS), userListingService.resolveFields(List.of()));
+		assertEquals(Set.of("userName", "assets"), userListingService.resolveFields(List.of("userName", "assets")));
+		assertThrows(IllegalArgumentException.class, () -> userListingService.resolveFields(List.of("passWord")));
+	}
+
+	@Test
+	void fullPageWritesTheRequestedFieldsAndTheNextCursor() throws Exception {
+		ObjectId first = new ObjectId();
+		ObjectId second = new ObjectId();
+
+		JsonNode page = list(Set.of("id", "userName"), null, 2, user(first, "alice"), user(second, "bob"));
+
+		assertEquals(2, page.get("items").size());
+		JsonNode alice = page.get("items").get(0);
+		assertEquals(first.toHexString(), alice.get("id").asText());
+		assertEquals("alice", alice.get("userName").asText());
+		assertFalse(alice.has("role"));
+		assertEquals(second.toHexString(), page.get("nextCursor").asText());
+	}
+
+	@Test
+	void lastPageHasNoCursorAndStartsAfterTheGivenOne() throws Exception {
+		ObjectId after = new ObjectId();
+
+		JsonNode page = list(Set.of("id"), after.toHexString(), 2, user(new ObjectId(), "carol"));
+
+		assertEquals(1, page.get("items").size());
+		assertTrue(page.get("nextCursor").isNull());
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).stream(query.capture(), eq(Document.class), eq("user"));
+		assertEquals(new Document("$gt", after), query.getValue().getQueryObject().get("_id"));
+		assertEquals(2, query.getValue().getLimit());
+	}
+
+	@Test
+	void malformedCursorIsRejectedBeforeQuerying() {
+		assertThrows(IllegalArgumentException.class,
+				() -> userListingService.writeUsers(Set.of("id"), "not-an-id", 10, new ByteArrayOutputStream()));
+		verify(mongoTemplate, never()).stream(any(Query.class), eq(Document.class), eq("user"));
+	}
+}